@@ -0,0 +1,314 @@
+package info.kgeorgiy.ja.sinitsyn.arrayset;
+
+import java.util.*;
+
+/**
+ * Base for immutable navigable sets stored in one flat sorted array. Each instance
+ * is a window {@code [from, to)} over that array, read either in storage order or
+ * reversed. Subsets and descending views only move the window, so they share the
+ * array whatever the nesting depth is.
+ *
+ * @param <E> element type
+ *
+ * @author AlexSin
+ */
+@SuppressWarnings("unchecked")
+public abstract class AbstractArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+
+    /** First raw index of the window, inclusive */
+    protected final int from;
+    /** Last raw index of the window, exclusive */
+    protected final int to;
+    /** Whether this set is read from {@link #to} down to {@link #from} */
+    protected final boolean reversed;
+
+    /**
+     * Creates window over the storage of a subclass
+     *
+     * @param from first raw index, inclusive
+     * @param to last raw index, exclusive
+     * @param reversed whether elements are read in descending storage order
+     */
+    protected AbstractArraySet(final int from, final int to, final boolean reversed) {
+        this.from = from;
+        this.to = to;
+        this.reversed = reversed;
+    }
+
+    /**
+     * Returns element stored at the given raw index
+     *
+     * @param index raw index in {@code [from, to)}
+     *
+     * @return stored element
+     */
+    protected abstract E elementAt(final int index);
+
+    /**
+     * Binary search in the window in storage order
+     *
+     * @param e element to search for
+     * @param strict whether to skip elements equal to {@code e}
+     *
+     * @return first raw index in {@code [from, to]} whose element is greater than
+     * {@code e} (if {@code strict}) or not less than {@code e} (otherwise)
+     */
+    protected abstract int bound(final E e, final boolean strict);
+
+    /**
+     * Creates set over the same storage
+     *
+     * @param from first raw index, inclusive
+     * @param to last raw index, exclusive
+     * @param reversed whether elements are read in descending storage order
+     *
+     * @return new window
+     */
+    protected abstract AbstractArraySet<E> view(final int from, final int to, final boolean reversed);
+
+    /**
+     * Returns comparator the storage is sorted by
+     *
+     * @return storage comparator, {@code null} for natural ordering
+     */
+    protected abstract Comparator<? super E> storageComparator();
+
+    @Override
+    public abstract boolean contains(final Object obj);
+
+    /**
+     * Resolves navigation query to a raw index
+     *
+     * @param inclusive whether {@code e} itself is acceptable ({@code floor}, {@code ceiling})
+     * @param below whether the answer precedes {@code e} in this set order ({@code lower}, {@code floor})
+     * @param e element to navigate from
+     *
+     * @return raw index of the answer or {@code -1} if there is no such element
+     */
+    protected final int index(final boolean inclusive, final boolean below, final E e) {
+        final boolean down = below != reversed;
+
+        return window(bound(e, down == inclusive) - (down ? 1 : 0));
+    }
+
+    /**
+     * Checks that raw index lies in the window
+     *
+     * @param index raw index
+     *
+     * @return {@code index} or {@code -1} if it is out of the window
+     */
+    protected final int window(final int index) {
+        return from <= index && index < to ? index : -1;
+    }
+
+    /**
+     * Converts position in this set order to a raw index
+     *
+     * @param position position in {@code [0, size())}
+     *
+     * @return raw index
+     */
+    protected final int raw(final int position) {
+        return reversed ? to - 1 - position : from + position;
+    }
+
+    private E elementOrNull(final int index) {
+        return index < 0 ? null : elementAt(index);
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public E lower(final E e) {
+        return elementOrNull(index(false, true, e));
+    }
+
+    @Override
+    public E floor(final E e) {
+        return elementOrNull(index(true, true, e));
+    }
+
+    @Override
+    public E ceiling(final E e) {
+        return elementOrNull(index(true, false, e));
+    }
+
+    @Override
+    public E higher(final E e) {
+        return elementOrNull(index(false, false, e));
+    }
+
+    @Override
+    public E pollFirst() {
+        throw new UnsupportedOperationException("this set is immutable");
+    }
+
+    @Override
+    public E pollLast() {
+        throw new UnsupportedOperationException("this set is immutable");
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("no more elements");
+                }
+
+                return elementAt(raw(position++));
+            }
+        };
+    }
+
+    @Override
+    public AbstractArraySet<E> descendingSet() {
+        return view(from, to, !reversed);
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return reversed ? Collections.reverseOrder(storageComparator()) : storageComparator();
+    }
+
+    @Override
+    public AbstractArraySet<E> subSet(final E fromElement, final boolean fromInclusive, final E toElement, final boolean toInclusive) {
+        final Comparator<? super E> comparator = comparator();
+        if (comparator == null
+                ? ((Comparable<? super E>) fromElement).compareTo(toElement) > 0
+                : comparator.compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("fromElement can not be greater than toElement");
+        }
+
+        final int lo = rangeStart(fromElement, fromInclusive, toElement, toInclusive);
+
+        return view(lo, Math.max(lo, rangeEnd(fromElement, fromInclusive, toElement, toInclusive)), reversed);
+    }
+
+    private int rangeStart(final E fromElement, final boolean fromInclusive, final E toElement, final boolean toInclusive) {
+        return reversed ? bound(toElement, !toInclusive) : bound(fromElement, !fromInclusive);
+    }
+
+    private int rangeEnd(final E fromElement, final boolean fromInclusive, final E toElement, final boolean toInclusive) {
+        return reversed ? bound(fromElement, fromInclusive) : bound(toElement, toInclusive);
+    }
+
+    @Override
+    public AbstractArraySet<E> headSet(final E toElement, final boolean inclusive) {
+        return reversed
+                ? view(bound(toElement, !inclusive), to, true)
+                : view(from, bound(toElement, inclusive), false);
+    }
+
+    @Override
+    public AbstractArraySet<E> tailSet(final E fromElement, final boolean inclusive) {
+        return reversed
+                ? view(from, bound(fromElement, inclusive), true)
+                : view(bound(fromElement, !inclusive), to, false);
+    }
+
+    @Override
+    public AbstractArraySet<E> subSet(final E fromElement, final E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public AbstractArraySet<E> headSet(final E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public AbstractArraySet<E> tailSet(final E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    /**
+     * Returns element by its position in this set order. Takes {@code O(1)} time
+     *
+     * @param index position of the element
+     *
+     * @return element at the position
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is out of {@code [0, size())}
+     */
+    public E get(final int index) {
+        return elementAt(raw(Objects.checkIndex(index, size())));
+    }
+
+    /**
+     * Returns number of elements preceding the given one in this set order. If the set
+     * contains {@code e}, it is the position of {@code e}. Takes {@code O(log n)} time
+     *
+     * @param e element to search for
+     *
+     * @return number of elements that are less than {@code e} in this set order
+     */
+    public int rankOf(final E e) {
+        return reversed ? to - bound(e, true) : bound(e, false) - from;
+    }
+
+    /**
+     * Returns size of {@link #subSet(Object, boolean, Object, boolean)} without creating it.
+     * Takes {@code O(log n)} time
+     *
+     * @param fromElement low endpoint of the range
+     * @param fromInclusive whether the low endpoint is included
+     * @param toElement high endpoint of the range
+     * @param toInclusive whether the high endpoint is included
+     *
+     * @return number of elements in the range, {@code 0} if {@code fromElement} is greater than {@code toElement}
+     */
+    public int countInRange(final E fromElement, final boolean fromInclusive, final E toElement, final boolean toInclusive) {
+        return Math.max(0, rangeEnd(fromElement, fromInclusive, toElement, toInclusive)
+                - rangeStart(fromElement, fromInclusive, toElement, toInclusive));
+    }
+
+    /**
+     * Returns size of {@link #subSet(Object, Object)} without creating it
+     *
+     * @param fromElement low endpoint of the range, inclusive
+     * @param toElement high endpoint of the range, exclusive
+     *
+     * @return number of elements in the range
+     *
+     * @see #countInRange(Object, boolean, Object, boolean)
+     */
+    public int countInRange(final E fromElement, final E toElement) {
+        return countInRange(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public E first() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("set is empty");
+        }
+
+        return elementAt(raw(0));
+    }
+
+    @Override
+    public E last() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("set is empty");
+        }
+
+        return elementAt(raw(size() - 1));
+    }
+}
@@ -0,0 +1,142 @@
+package info.kgeorgiy.ja.sinitsyn.arrayset;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Base for sets of primitive values in natural order. Subclasses expose every stored value
+ * as a {@code long} key ordered the same way as the values, and the search, unboxed
+ * navigation and iteration over the window are done here on keys.
+ *
+ * @param <E> boxed element type
+ *
+ * @author AlexSin
+ */
+public abstract class AbstractPrimitiveArraySet<E> extends AbstractArraySet<E> {
+
+    /**
+     * Creates window over the storage of a subclass
+     *
+     * @param from first raw index, inclusive
+     * @param to last raw index, exclusive
+     * @param reversed whether elements are read in descending storage order
+     */
+    protected AbstractPrimitiveArraySet(final int from, final int to, final boolean reversed) {
+        super(from, to, reversed);
+    }
+
+    /**
+     * Returns key of the value stored at the given raw index
+     *
+     * @param index raw index
+     *
+     * @return key, keys are ordered as the values
+     */
+    protected abstract long keyAt(final int index);
+
+    /**
+     * Returns key of a boxed value
+     *
+     * @param e value
+     *
+     * @return key of the value
+     */
+    protected abstract long key(final E e);
+
+    /**
+     * Binary search of a key in the window in storage order
+     *
+     * @param key key to search for
+     * @param strict whether to skip values with this key
+     *
+     * @return first raw index in {@code [from, to]} whose key is greater than
+     * {@code key} (if {@code strict}) or not less than {@code key} (otherwise)
+     */
+    protected final int bound(final long key, final boolean strict) {
+        int lo = from;
+        int hi = to;
+
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            final long k = keyAt(mid);
+
+            if (k < key || strict && k == key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+
+    @Override
+    protected final int bound(final E e, final boolean strict) {
+        return bound(key(e), strict);
+    }
+
+    @Override
+    protected final Comparator<? super E> storageComparator() {
+        return null;
+    }
+
+    /**
+     * Resolves unboxed navigation query to a raw index
+     *
+     * @param inclusive whether {@code key} itself is acceptable
+     * @param below whether the answer precedes {@code key} in this set order
+     * @param key key to navigate from
+     *
+     * @return raw index of the answer
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    protected final int navigate(final boolean inclusive, final boolean below, final long key) {
+        final boolean down = below != reversed;
+        final int index = window(bound(key, down == inclusive) - (down ? 1 : 0));
+        if (index < 0) {
+            throw new NoSuchElementException("no such element");
+        }
+
+        return index;
+    }
+
+    /**
+     * Checks whether a value with the key belongs to this set
+     *
+     * @param key key to search for
+     *
+     * @return {@code true} if the set contains value with {@code key}
+     */
+    protected final boolean containsKey(final long key) {
+        final int index = bound(key, false);
+
+        return index < to && keyAt(index) == key;
+    }
+
+    /**
+     * Returns iterator over raw indices of this set in this set order
+     *
+     * @return iterator of raw indices
+     */
+    protected final PrimitiveIterator.OfInt indices() {
+        return new PrimitiveIterator.OfInt() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("no more elements");
+                }
+
+                return raw(position++);
+            }
+        };
+    }
+}
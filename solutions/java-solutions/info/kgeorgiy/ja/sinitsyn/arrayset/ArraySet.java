@@ -1,12 +1,31 @@
 package info.kgeorgiy.ja.sinitsyn.arrayset;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 @SuppressWarnings("unchecked")
-public class ArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+public class ArraySet<E> extends AbstractArraySet<E> {
 
-    private final ReversibleArrayList<E> elements;
+    private final Object[] elements;
     private final Comparator<? super E> comparator;
+    private final Comparator<? super E> order;
+    private final EytzingerIndex<E> eytzinger;
+    private final Search search;
+
+    /**
+     * Memory layout used to answer navigation queries. Iteration is always done over
+     * the sorted array
+     */
+    public enum Layout {
+        /** Binary search over the sorted array */
+        SORTED,
+        /**
+         * Search over an additional copy of the elements in Eytzinger (BFS) order. Costs one
+         * more reference and one {@code int} per element, but touches much fewer cache lines
+         * on large sets. The index is shared by all views of the set
+         */
+        EYTZINGER
+    }
 
     public ArraySet() {
         this(List.of(), null);
@@ -17,257 +36,491 @@ public class ArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
     }
 
     public ArraySet(final Collection<? extends E> collection, final Comparator<? super E> comparator) {
-        var tree = new TreeSet<E>(comparator);
-        tree.addAll(collection);
+        this(collection, comparator, Layout.SORTED);
+    }
 
-        elements = new ReversibleArrayList<>(List.copyOf(tree));
+    public ArraySet(final Collection<? extends E> collection, final Comparator<? super E> comparator, final Layout layout) {
+        this(sortedDistinct(collection, comparator, false), comparator, layout);
+    }
 
-        this.comparator = comparator;
+    private ArraySet(final E[] sorted, final Comparator<? super E> comparator, final Layout layout) {
+        this(sorted, comparator,
+                layout == Layout.EYTZINGER ? new EytzingerIndex<>(Arrays.asList(sorted), order(comparator)) : null,
+                Search.of(sorted, comparator), 0, sorted.length, false);
     }
 
-    public ArraySet(final ReversibleArrayList<E> list, final Comparator<? super E> comparator) {
-        elements = list;
+    private ArraySet(final Object[] elements, final Comparator<? super E> comparator, final EytzingerIndex<E> eytzinger,
+                     final Search search, final int from, final int to, final boolean reversed) {
+        super(from, to, reversed);
 
+        this.elements = elements;
         this.comparator = comparator;
+        this.order = order(comparator);
+        this.eytzinger = eytzinger;
+        this.search = search;
     }
 
+    /**
+     * Binary search loop used by {@link #bound}. Under natural ordering of {@link String},
+     * {@link Integer} or {@link Long} elements {@code compareTo} is called on the final class
+     * directly, so every loop has one monomorphic call site the JIT can inline, instead of
+     * going through {@link Comparator#naturalOrder()} shared by all sets
+     */
+    private enum Search {
+        STRING, INTEGER, LONG, COMPARABLE, COMPARATOR;
+
+        private static Search of(final Object[] elements, final Comparator<?> comparator) {
+            if (comparator != null) {
+                return COMPARATOR;
+            }
+            if (elements.length == 0) {
+                return COMPARABLE;
+            }
 
-    private final static class ReversibleArrayList<T> extends AbstractList<T> implements RandomAccess {
-
-        private final List<T> list;
-        private final boolean isReversed;
+            final Class<?> type = elements[0].getClass();
+            for (final Object e : elements) {
+                if (e.getClass() != type) {
+                    return COMPARABLE;
+                }
+            }
 
-        private ReversibleArrayList(final List<T> list) {
-            this(list, false);
+            return type == String.class ? STRING
+                    : type == Integer.class ? INTEGER
+                    : type == Long.class ? LONG
+                    : COMPARABLE;
         }
+    }
 
-        private ReversibleArrayList(final List<T> list, final boolean isReversed) {
-            this.list = list;
-            this.isReversed = isReversed;
-        }
+    /**
+     * Creates set from elements that are already sorted by the given comparator. The order
+     * is taken on trust: no sorting is done, only duplicates are dropped in one linear pass.
+     * If {@code collection} is not sorted, the resulting set is broken.
+     *
+     * @param collection elements in ascending order, duplicates are allowed
+     * @param comparator order of elements, {@code null} for natural ordering
+     * @param <E> element type
+     *
+     * @return set of the given elements
+     */
+    public static <E> ArraySet<E> ofSorted(final Collection<? extends E> collection, final Comparator<? super E> comparator) {
+        return ofSorted(collection, comparator, Layout.SORTED);
+    }
 
-        private ReversibleArrayList(final ReversibleArrayList<T> list, final boolean isReversed) {
-            this.list = list.list;
-            this.isReversed = list.isReversed ? !isReversed : isReversed;
-        }
+    /**
+     * Same as {@link #ofSorted(Collection, Comparator)} with the given search layout
+     *
+     * @param collection elements in ascending order, duplicates are allowed
+     * @param comparator order of elements, {@code null} for natural ordering
+     * @param layout search layout
+     * @param <E> element type
+     *
+     * @return set of the given elements
+     */
+    public static <E> ArraySet<E> ofSorted(final Collection<? extends E> collection, final Comparator<? super E> comparator,
+                                           final Layout layout) {
+        return new ArraySet<>(sortedDistinct(collection, comparator, true), comparator, layout);
+    }
+
+    private static <E> Comparator<? super E> order(final Comparator<? super E> comparator) {
+        return comparator == null ? (Comparator<? super E>) Comparator.naturalOrder() : comparator;
+    }
+
+    private static <E> E[] sortedDistinct(final Collection<? extends E> collection,
+                                          final Comparator<? super E> comparator,
+                                          final boolean sorted) {
+        final E[] array = (E[]) collection.toArray();
 
-        @Override
-        public T get(final int index) {
-            return list == null ? null : list.get(isReversed ? size() - 1 - index : index);
+        if (collection instanceof SortedSet<?> set && Objects.equals(set.comparator(), comparator)) {
+            return array;
         }
 
-        @Override
-        public int size() {
-            return list == null ? 0 : list.size();
+        final Comparator<? super E> order = order(comparator);
+
+        if (!sorted && !isSorted(array, order)) {
+            // stable, so the first of equal elements is kept, as TreeSet does
+            Arrays.parallelSort(array, order);
         }
 
-        @Override
-        public Iterator<T> iterator() {
-            return super.iterator();
+        int size = 0;
+        for (final E e : array) {
+            if (size == 0 || order.compare(array[size - 1], e) != 0) {
+                array[size++] = e;
+            }
         }
-    }
 
-    private int find(final E e) {
-        return Collections.binarySearch(elements, e, comparator);
+        return size == array.length ? array : Arrays.copyOf(array, size);
     }
 
-    private int indexOf(final E e) {
-        int index = find(e);
+    private static <E> boolean isSorted(final E[] array, final Comparator<? super E> order) {
+        for (int i = 1; i < array.length; i++) {
+            if (order.compare(array[i - 1], array[i]) > 0) {
+                return false;
+            }
+        }
 
-        return index >= 0 ? index : -(index + 1);
+        return true;
     }
 
     @Override
-    public int size() {
-        return elements.size();
+    protected E elementAt(final int index) {
+        return (E) elements[index];
     }
 
     @Override
-    public E lower(final E e) {
-        final int index = indexOf(e) - 1;
+    protected int bound(final E e, final boolean strict) {
+        if (eytzinger != null) {
+            return Math.max(from, Math.min(to, eytzinger.bound(e, strict)));
+        }
 
-        return index < 0 || index >= size() ? null : elements.get(index);
+        return switch (search) {
+            case STRING -> e instanceof String key ? boundString(elements, from, to, key, strict) : boundComparable(e, strict);
+            case INTEGER -> e instanceof Integer key ? boundInteger(elements, from, to, key, strict) : boundComparable(e, strict);
+            case LONG -> e instanceof Long key ? boundLong(elements, from, to, key, strict) : boundComparable(e, strict);
+            case COMPARABLE -> boundComparable(e, strict);
+            case COMPARATOR -> boundComparator(e, strict);
+        };
     }
 
-    @Override
-    public E floor(final E e) {
-        final int found = find(e);
+    private static int boundString(final Object[] elements, int lo, int hi, final String key, final boolean strict) {
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int cmp = ((String) elements[mid]).compareTo(key);
+
+            if (cmp < 0 || strict && cmp == 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
 
-        return found >= 0 && found < size() ? elements.get(found) : lower(e);
+        return lo;
     }
 
-    @Override
-    public E ceiling(final E e) {
-        final int found = indexOf(e);
+    private static int boundInteger(final Object[] elements, int lo, int hi, final Integer key, final boolean strict) {
+        final int value = key;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int element = (Integer) elements[mid];
 
-        return found >= 0 && found < size() ? elements.get(found) : higher(e);
+            if (element < value || strict && element == value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
     }
 
-    @Override
-    public E higher(final E e) {
-        int index = indexOf(e);
+    private static int boundLong(final Object[] elements, int lo, int hi, final Long key, final boolean strict) {
+        final long value = key;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            final long element = (Long) elements[mid];
 
-        if (index < 0 || index >= size()) {
-            return null;
+            if (element < value || strict && element == value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
         }
 
-        if (compare(elements.get(index), e) == 0) {
-            if (++index < size()) {
-                return elements.get(index);
-            }
+        return lo;
+    }
+
+    private int boundComparable(final E e, final boolean strict) {
+        int lo = from;
+        int hi = to;
+
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int cmp = ((Comparable<? super E>) elements[mid]).compareTo(e);
 
-            return null;
+            if (cmp < 0 || strict && cmp == 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
         }
 
-        return elements.get(index);
+        return lo;
     }
 
-    @Override
-    public E pollFirst() {
-        //        if (isEmpty()) {
-        //            return null;
-        //        }
-        //
-        //        var it = iterator();
-        //        var res = it.next();
-        //        it.remove();
-        //
-        //        return res;
-        throw new UnsupportedOperationException("this set is immutable");
-    }
+    private int boundComparator(final E e, final boolean strict) {
+        int lo = from;
+        int hi = to;
 
-    @Override
-    public E pollLast() {
-        //        if (isEmpty()) {
-        //            return null;
-        //        }
-        //
-        //        var it = descendingIterator();
-        //        var res = it.next();
-        //        it.remove();
-        //
-        //        return res;
-        throw new UnsupportedOperationException("this set is immutable");
-    }
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int cmp = order.compare((E) elements[mid], e);
 
-    @Override
-    public Iterator<E> iterator() {
-        return elements.iterator();
+            if (cmp < 0 || strict && cmp == 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
     }
 
     @Override
-    public NavigableSet<E> descendingSet() {
-        return new ArraySet<>(new ReversibleArrayList<>(elements, true), Collections.reverseOrder(comparator));
+    protected ArraySet<E> view(final int from, final int to, final boolean reversed) {
+        return new ArraySet<>(elements, comparator, eytzinger, search, from, to, reversed);
     }
 
     @Override
-    public Iterator<E> descendingIterator() {
-        return descendingSet().iterator();
+    protected Comparator<? super E> storageComparator() {
+        return comparator;
     }
 
     @Override
-    public Comparator<? super E> comparator() {
-        return comparator;
+    public ArraySet<E> descendingSet() {
+        return view(from, to, !reversed);
     }
 
     @Override
-    public NavigableSet<E> subSet(final E fromElement, final boolean fromInclusive, final E toElement, final boolean toInclusive) {
-        if (compare(fromElement, toElement) > 0) {
-            throw new IllegalArgumentException("fromElement can not be greater than toElement");
+    public boolean contains(final Object obj) {
+        if (obj == null) {
+            return false;
         }
 
-        if (isEmpty()) {
-            return new ArraySet<>(List.of(), comparator);
-        }
+        final int index = bound((E) obj, false);
 
-        return headSet(toElement, toInclusive).tailSet(fromElement, fromInclusive);
+        return index < to && order.compare((E) elements[index], (E) obj) == 0;
     }
 
-    private int compare(final E e1, final E e2) {
-        return comparator == null ? (Objects.equals(e1, e2) ? 0 : 1) : comparator.compare(e1, e2);
-    }
+    private enum Operation {
+        UNION(true, true, true),
+        INTERSECTION(false, true, false),
+        DIFFERENCE(true, false, false);
 
-    @Override
-    public NavigableSet<E> headSet(final E toElement, final boolean inclusive) {
-        if (isEmpty()) {
-            return new ArraySet<>(List.of(), comparator);
-        }
+        private final boolean keepOnlyLeft;
+        private final boolean keepBoth;
+        private final boolean keepOnlyRight;
 
-        final int found = indexOf(toElement);
-        if (found == size()) {
-            return new ArraySet<>(elements, comparator);
+        Operation(final boolean keepOnlyLeft, final boolean keepBoth, final boolean keepOnlyRight) {
+            this.keepOnlyLeft = keepOnlyLeft;
+            this.keepBoth = keepBoth;
+            this.keepOnlyRight = keepOnlyRight;
         }
 
-        final boolean contains = inclusive && compare(elements.get(found), toElement) == 0;
-        final int index = found + (!contains ? -1 : 0);
+        private int capacity(final int left, final int right) {
+            return keepOnlyRight ? left + right : keepOnlyLeft ? left : Math.min(left, right);
+        }
+    }
 
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * Returns set of elements contained in this set or in the given one. Both sets are
+     * merged in linear time, or in {@code O(k log(n / k))} comparisons if one of them is
+     * much smaller than the other
+     *
+     * @param other set to unite with
+     *
+     * @return new set ordered as this one
+     */
+    public ArraySet<E> union(final ArraySet<? extends E> other) {
+        return merge(other, Operation.UNION, false);
+    }
 
-        return new ArraySet<>(new ReversibleArrayList<>(elements.subList(0, index + 1)), comparator);
+    /**
+     * Returns set of elements contained both in this set and in the given one
+     *
+     * @param other set to intersect with
+     *
+     * @return new set ordered as this one
+     *
+     * @see #union(ArraySet)
+     */
+    public ArraySet<E> intersect(final ArraySet<? extends E> other) {
+        return merge(other, Operation.INTERSECTION, false);
     }
 
-    static int count = 0;
-    @Override
-    public NavigableSet<E> tailSet(final E fromElement, final boolean inclusive) {
-        if (isEmpty()) {
-            return new ArraySet<>(List.of(), comparator);
-        }
+    /**
+     * Returns set of elements contained in this set but not in the given one
+     *
+     * @param other set of elements to exclude
+     *
+     * @return new set ordered as this one
+     *
+     * @see #union(ArraySet)
+     */
+    public ArraySet<E> minus(final ArraySet<? extends E> other) {
+        return merge(other, Operation.DIFFERENCE, false);
+    }
 
-        final int found = indexOf(fromElement);
-        if (found >= size()) {
-            return new ArraySet<>(List.of(), comparator);
-        }
+    /**
+     * Returns set of elements contained in this set or in the given collection. Only the
+     * collection is sorted, then it is merged into this set
+     *
+     * @param collection elements to add
+     *
+     * @return new set ordered as this one
+     *
+     * @see #union(ArraySet)
+     */
+    public ArraySet<E> withAll(final Collection<? extends E> collection) {
+        return union(collection instanceof ArraySet<? extends E> set ? set : new ArraySet<>(collection, comparator));
+    }
 
-        final boolean contains = !inclusive && compare(elements.get(found), fromElement) == 0;
-        final int index = found + (contains ? +1 : 0);
+    /**
+     * Same as {@link #union(ArraySet)}, but large sets are split by ranks into parts
+     * that are merged in parallel
+     *
+     * @param other set to unite with
+     *
+     * @return new set ordered as this one
+     */
+    public ArraySet<E> parallelUnion(final ArraySet<? extends E> other) {
+        return merge(other, Operation.UNION, true);
+    }
 
-        return new ArraySet<>(new ReversibleArrayList<>(elements.subList(index, elements.size())), comparator);
+    /**
+     * Same as {@link #intersect(ArraySet)}, but large sets are split by ranks into parts
+     * that are merged in parallel
+     *
+     * @param other set to intersect with
+     *
+     * @return new set ordered as this one
+     */
+    public ArraySet<E> parallelIntersect(final ArraySet<? extends E> other) {
+        return merge(other, Operation.INTERSECTION, true);
     }
 
-    @Override
-    public SortedSet<E> subSet(final E fromElement, final E toElement) {
-        return subSet(fromElement, true, toElement, false);
+    /**
+     * Same as {@link #minus(ArraySet)}, but large sets are split by ranks into parts
+     * that are merged in parallel
+     *
+     * @param other set of elements to exclude
+     *
+     * @return new set ordered as this one
+     */
+    public ArraySet<E> parallelMinus(final ArraySet<? extends E> other) {
+        return merge(other, Operation.DIFFERENCE, true);
     }
 
-    @Override
-    public SortedSet<E> headSet(final E toElement) {
-        return headSet(toElement, false);
+    private ArraySet<E> merge(final ArraySet<? extends E> other, final Operation operation, final boolean parallel) {
+        // both sides are merged in storage order, the result is then read in the direction of this set
+        final ArraySet<? extends E> right = Objects.equals(other.comparator, comparator) ? other : new ArraySet<E>(other, comparator);
+
+        final Object[] merged;
+        if (!parallel || size() + right.size() < PARALLEL_THRESHOLD) {
+            merged = merge(elements, from, to, right.elements, right.from, right.to, order, operation);
+        } else {
+            merged = parallelMerge(right, operation);
+        }
+
+        final ArraySet<E> result = new ArraySet<>((E[]) merged, comparator, eytzinger == null ? Layout.SORTED : Layout.EYTZINGER);
+
+        return reversed ? result.descendingSet() : result;
     }
 
-    @Override
-    public SortedSet<E> tailSet(final E fromElement) {
-        return tailSet(fromElement, true);
+    private Object[] parallelMerge(final ArraySet<? extends E> right, final Operation operation) {
+        final boolean leftLarger = size() >= right.size();
+        final ArraySet<? extends E> larger = leftLarger ? this : right;
+        final ArraySet<? extends E> smaller = leftLarger ? right : this;
+
+        // parts are split by the same key in both sets, so equal elements never fall into different parts
+        final int parts = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), larger.size() / PARALLEL_THRESHOLD));
+        final int[] largerSplits = new int[parts + 1];
+        final int[] smallerSplits = new int[parts + 1];
+        largerSplits[0] = larger.from;
+        smallerSplits[0] = smaller.from;
+        for (int i = 1; i < parts; i++) {
+            largerSplits[i] = larger.from + (int) ((long) larger.size() * i / parts);
+            smallerSplits[i] = advance(smaller.elements, smallerSplits[i - 1], smaller.to,
+                    (E) larger.elements[largerSplits[i]], order);
+        }
+        largerSplits[parts] = larger.to;
+        smallerSplits[parts] = smaller.to;
+
+        final int[] leftSplits = leftLarger ? largerSplits : smallerSplits;
+        final int[] rightSplits = leftLarger ? smallerSplits : largerSplits;
+        final Object[][] merged = IntStream.range(0, parts).parallel()
+                .mapToObj(i -> merge(elements, leftSplits[i], leftSplits[i + 1],
+                        right.elements, rightSplits[i], rightSplits[i + 1], order, operation))
+                .toArray(Object[][]::new);
+
+        final Object[] result = new Object[Arrays.stream(merged).mapToInt(part -> part.length).sum()];
+        int offset = 0;
+        for (final Object[] part : merged) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+
+        return result;
     }
 
-    @Override
-    public E first() {
-        if (isEmpty()) {
-            throw new NoSuchElementException("set is empty");
+    private static <E> Object[] merge(final Object[] left, int i, final int leftTo,
+                                      final Object[] right, int j, final int rightTo,
+                                      final Comparator<? super E> order, final Operation operation) {
+        final int leftSize = leftTo - i;
+        final int rightSize = rightTo - j;
+        final Object[] result = new Object[operation.capacity(leftSize, rightSize)];
+        final int smaller = Math.min(leftSize, rightSize);
+        final int larger = Math.max(leftSize, rightSize);
+        // skip runs of the larger side by exponential search if they are expected to be long
+        final boolean galloping = (long) smaller * (32 - Integer.numberOfLeadingZeros(larger)) < larger;
+
+        int size = 0;
+        while (i < leftTo && j < rightTo) {
+            final int cmp = order.compare((E) left[i], (E) right[j]);
+
+            if (cmp < 0) {
+                final int next = galloping ? advance(left, i, leftTo, (E) right[j], order) : i + 1;
+                size = copy(left, i, next, result, size, operation.keepOnlyLeft);
+                i = next;
+            } else if (cmp > 0) {
+                final int next = galloping ? advance(right, j, rightTo, (E) left[i], order) : j + 1;
+                size = copy(right, j, next, result, size, operation.keepOnlyRight);
+                j = next;
+            } else {
+                size = copy(left, i++, i, result, size, operation.keepBoth);
+                j++;
+            }
         }
+        size = copy(left, i, leftTo, result, size, operation.keepOnlyLeft);
+        size = copy(right, j, rightTo, result, size, operation.keepOnlyRight);
 
-        return elements.get(0);
+        return size == result.length ? result : Arrays.copyOf(result, size);
     }
 
-    @Override
-    public E last() {
-        if (isEmpty()) {
-            throw new NoSuchElementException("set is empty");
+    private static int copy(final Object[] array, final int from, final int to, final Object[] result, final int size, final boolean keep) {
+        if (!keep) {
+            return size;
         }
 
-        return elements.get(elements.size() - 1);
+        System.arraycopy(array, from, result, size, to - from);
+
+        return size + to - from;
     }
 
-    @Override
-    public boolean contains(final Object obj) {
-        if (obj == null) {
-            return false;
+    /** Exponential search of the first element in {@code [from, to)} that is not less than {@code key} */
+    private static <E> int advance(final Object[] array, final int from, final int to, final E key, final Comparator<? super E> order) {
+        int step = 1;
+        int lo = from;
+        int hi = from;
+
+        while (hi < to && order.compare((E) array[hi], key) < 0) {
+            lo = hi + 1;
+            hi = from + step;
+            step <<= 1;
         }
+        hi = Math.min(hi, to);
+
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
 
-        int index = find((E) obj);
+            if (order.compare((E) array[mid], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
 
-        return index >= 0 && index < elements.size() &&
-                (comparator == null
-                        ? elements.get(index).equals(obj)
-                        : compare(elements.get(index), (E) obj) == 0);
+        return lo;
     }
 
     @Override
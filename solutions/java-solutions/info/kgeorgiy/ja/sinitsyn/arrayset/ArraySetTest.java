@@ -0,0 +1,145 @@
+package info.kgeorgiy.ja.sinitsyn.arrayset;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Tests for navigation of {@link ArraySet} under natural ordering. Every search loop
+ * ({@link String}, {@link Integer}, {@link Long}, other {@link Comparable} and the
+ * comparator one) is checked against {@link TreeSet}, as well as {@link PrefixArraySet}
+ *
+ * @author AlexSin
+ */
+@RunWith(JUnit4.class)
+public final class ArraySetTest {
+
+    private static final Random RANDOM = new Random(3257642153642L);
+
+    /** {@link Comparable} that is neither of the specialized classes */
+    private record Point(int x, int y) implements Comparable<Point> {
+        @Override
+        public int compareTo(final Point other) {
+            return x != other.x ? Integer.compare(x, other.x) : Integer.compare(y, other.y);
+        }
+    }
+
+    private static <E> void test(final List<E> values, final List<E> queries, final Comparator<? super E> comparator) {
+        for (final ArraySet.Layout layout : ArraySet.Layout.values()) {
+            final NavigableSet<E> expected = new TreeSet<>(comparator);
+            expected.addAll(values);
+            final NavigableSet<E> actual = new ArraySet<>(values, comparator, layout);
+
+            check(expected, actual, queries);
+            check(expected.descendingSet(), actual.descendingSet(), queries);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> void check(final NavigableSet<E> expected, final NavigableSet<E> actual, final List<E> queries) {
+        Assert.assertEquals("Expected equal elements", new ArrayList<>(expected), new ArrayList<>(actual));
+
+        for (final E e : queries) {
+            Assert.assertEquals("contains(" + e + ")", expected.contains(e), actual.contains(e));
+            Assert.assertEquals("lower(" + e + ")", expected.lower(e), actual.lower(e));
+            Assert.assertEquals("floor(" + e + ")", expected.floor(e), actual.floor(e));
+            Assert.assertEquals("ceiling(" + e + ")", expected.ceiling(e), actual.ceiling(e));
+            Assert.assertEquals("higher(" + e + ")", expected.higher(e), actual.higher(e));
+        }
+
+        final Comparator<? super E> comparator = expected.comparator() == null
+                ? (Comparator<? super E>) Comparator.naturalOrder()
+                : expected.comparator();
+        for (int i = 0; i + 1 < queries.size(); i += 2) {
+            E from = queries.get(i);
+            E to = queries.get(i + 1);
+            if (comparator.compare(from, to) > 0) {
+                final E tmp = from;
+                from = to;
+                to = tmp;
+            }
+
+            for (final boolean fromInclusive : new boolean[]{false, true}) {
+                for (final boolean toInclusive : new boolean[]{false, true}) {
+                    final String name = "subSet(" + from + ", " + fromInclusive + ", " + to + ", " + toInclusive + ")";
+                    Assert.assertEquals(name,
+                            new ArrayList<>(expected.subSet(from, fromInclusive, to, toInclusive)),
+                            new ArrayList<>(actual.subSet(from, fromInclusive, to, toInclusive)));
+                }
+            }
+        }
+    }
+
+    private static <E> List<E> random(final int size, final Function<Integer, E> generator) {
+        return IntStream.range(0, size).mapToObj(i -> generator.apply(RANDOM.nextInt(2 * size))).toList();
+    }
+
+    private static <E> void test(final Function<Integer, E> generator) {
+        for (final int size : new int[]{0, 1, 2, 10, 1000}) {
+            test(random(size, generator), random(100, generator), null);
+        }
+    }
+
+    @Test
+    public void stringsTest() {
+        test(i -> "key" + i);
+    }
+
+    @Test
+    public void integersTest() {
+        test(i -> i - 500);
+    }
+
+    @Test
+    public void longsTest() {
+        test(i -> (long) i << 33);
+    }
+
+    @Test
+    public void comparablesTest() {
+        test(i -> new Point(i % 7, i / 7));
+    }
+
+    @Test
+    public void comparatorTest() {
+        final List<String> values = random(1000, String::valueOf);
+        test(values, random(100, String::valueOf), Comparator.comparing(String::length).thenComparing(Comparator.reverseOrder()));
+    }
+
+    @Test
+    public void naturalOrderIsNotEqualityTest() {
+        final ArraySet<String> set = new ArraySet<>(List.of("b", "d", "f"));
+
+        Assert.assertEquals("b", set.lower("c"));
+        Assert.assertEquals("d", set.higher("c"));
+        Assert.assertEquals(List.of("d"), new ArrayList<>(set.subSet("c", "e")));
+        Assert.assertEquals(List.of("d", "b"), new ArrayList<>(set.descendingSet().subSet("e", "a")));
+    }
+
+    @Test
+    public void prefixSetTest() {
+        // UTF-8 bytes and UTF-16 units order the last two differently
+        final String[] parts = {"http://", "a/", "b/", "\u0436", "\uE000", "\uFFFF", "\uD83D\uDE00"};
+        final List<String> queries = random(100, i -> parts[i % parts.length] + parts[i / parts.length % parts.length]);
+        for (final int kinds : new int[]{parts.length - 1, parts.length}) {
+            final List<String> values = random(1000, i -> parts[i % kinds] + parts[i / kinds % kinds] + i % 3);
+            for (final int blockSize : new int[]{1, 4, 16}) {
+                final NavigableSet<String> expected = new TreeSet<>(values);
+                final NavigableSet<String> actual = new PrefixArraySet(values, null, blockSize);
+
+                check(expected, actual, queries);
+                check(expected.descendingSet(), actual.descendingSet(), queries);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invertedRangeTest() {
+        new ArraySet<>(List.of(1, 2, 3)).subSet(3, 1);
+    }
+}
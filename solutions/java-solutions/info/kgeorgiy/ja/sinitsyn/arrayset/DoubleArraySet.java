@@ -0,0 +1,180 @@
+package info.kgeorgiy.ja.sinitsyn.arrayset;
+
+import java.util.*;
+
+/**
+ * Immutable navigable set of {@code double} values stored in one sorted {@code double[]}.
+ * Values are ordered as by {@link Double#compare(double, double)}, the same way as boxed
+ * {@link Double} values are.
+ * Besides the boxed {@link NavigableSet} methods there are unboxed queries that do not
+ * allocate at all. Unboxed navigation methods throw {@link NoSuchElementException}
+ * where the boxed ones return {@code null}.
+ *
+ * @author AlexSin
+ */
+public class DoubleArraySet extends AbstractPrimitiveArraySet<Double> {
+
+    private final double[] elements;
+
+    /**
+     * Creates set of the given values. Duplicates are dropped
+     *
+     * @param values values in any order
+     */
+    public DoubleArraySet(final double... values) {
+        this(distinct(values.clone()), false);
+    }
+
+    /**
+     * Creates set of the given values. Duplicates are dropped
+     *
+     * @param collection values in any order
+     */
+    public DoubleArraySet(final Collection<? extends Double> collection) {
+        this(distinct(collection.stream().mapToDouble(Double::doubleValue).toArray()), false);
+    }
+
+    private DoubleArraySet(final double[] elements, final boolean reversed) {
+        this(elements, 0, elements.length, reversed);
+    }
+
+    private DoubleArraySet(final double[] elements, final int from, final int to, final boolean reversed) {
+        super(from, to, reversed);
+
+        this.elements = elements;
+    }
+
+    private static double[] distinct(final double[] values) {
+        Arrays.sort(values);
+
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || Double.compare(values[i], values[size - 1]) != 0) {
+                values[size++] = values[i];
+            }
+        }
+
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /** Maps {@code double} to a {@code long} ordered as by {@link Double#compare(double, double)} */
+    private static long key(final double value) {
+        final long bits = Double.doubleToLongBits(value);
+        return bits ^ (bits >> 63 & Long.MAX_VALUE);
+    }
+
+    @Override
+    protected long keyAt(final int index) {
+        return key(elements[index]);
+    }
+
+    @Override
+    protected long key(final Double e) {
+        return key(e.doubleValue());
+    }
+
+    @Override
+    protected Double elementAt(final int index) {
+        return elements[index];
+    }
+
+    @Override
+    protected DoubleArraySet view(final int from, final int to, final boolean reversed) {
+        return new DoubleArraySet(elements, from, to, reversed);
+    }
+
+    /**
+     * Checks whether the value belongs to this set
+     *
+     * @param e value to search for
+     *
+     * @return {@code true} if the set contains {@code e}
+     */
+    public boolean contains(final double e) {
+        return containsKey(key(e));
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        return obj instanceof Double e && contains(e.doubleValue());
+    }
+
+    /**
+     * Unboxed {@link #lower(Double)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the greatest value strictly less than {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public double lower(final double e) {
+        return elements[navigate(false, true, key(e))];
+    }
+
+    /**
+     * Unboxed {@link #floor(Double)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the greatest value less than or equal to {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public double floor(final double e) {
+        return elements[navigate(true, true, key(e))];
+    }
+
+    /**
+     * Unboxed {@link #ceiling(Double)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the least value greater than or equal to {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public double ceiling(final double e) {
+        return elements[navigate(true, false, key(e))];
+    }
+
+    /**
+     * Unboxed {@link #higher(Double)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the least value strictly greater than {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public double higher(final double e) {
+        return elements[navigate(false, false, key(e))];
+    }
+
+    @Override
+    public PrimitiveIterator.OfDouble iterator() {
+        final PrimitiveIterator.OfInt indices = indices();
+
+        return new PrimitiveIterator.OfDouble() {
+            @Override
+            public boolean hasNext() {
+                return indices.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return elements[indices.nextInt()];
+            }
+        };
+    }
+
+    @Override
+    public DoubleArraySet descendingSet() {
+        return view(from, to, !reversed);
+    }
+
+    @Override
+    public PrimitiveIterator.OfDouble descendingIterator() {
+        return descendingSet().iterator();
+    }
+}
@@ -0,0 +1,73 @@
+package info.kgeorgiy.ja.sinitsyn.arrayset;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Search index that keeps elements in Eytzinger (BFS) order: children of node {@code k}
+ * are {@code 2k} and {@code 2k + 1}. The first levels of the tree share a few cache lines,
+ * so a search touches far fewer of them than a binary search over the sorted array does.
+ * The descent itself has no data-dependent branches.
+ *
+ * @param <E> element type
+ *
+ * @author AlexSin
+ */
+final class EytzingerIndex<E> {
+
+    private final Object[] tree;
+    private final int[] ranks;
+    private final Comparator<? super E> order;
+
+    /**
+     * Builds index over sorted distinct elements
+     *
+     * @param sorted elements in ascending order
+     * @param order non-null comparator the elements are sorted by
+     */
+    EytzingerIndex(final List<? extends E> sorted, final Comparator<? super E> order) {
+        tree = new Object[sorted.size() + 1];
+        ranks = new int[sorted.size() + 1];
+        this.order = order;
+
+        build(sorted, 0, 1);
+    }
+
+    private int build(final List<? extends E> sorted, int rank, final int node) {
+        if (node < tree.length) {
+            rank = build(sorted, rank, 2 * node);
+
+            tree[node] = sorted.get(rank);
+            ranks[node] = rank++;
+
+            rank = build(sorted, rank, 2 * node + 1);
+        }
+
+        return rank;
+    }
+
+    /**
+     * Searches for a rank of the bound in ascending order
+     *
+     * @param e element to search for
+     * @param strict whether to skip element equal to {@code e}
+     *
+     * @return rank of the first element greater than {@code e} (if {@code strict}) or
+     * not less than {@code e} (otherwise), number of elements if there is no such one
+     */
+    @SuppressWarnings("unchecked")
+    int bound(final E e, final boolean strict) {
+        int node = 1;
+
+        while (node < tree.length) {
+            final int cmp = order.compare((E) tree[node], e);
+
+            node = 2 * node + (cmp < 0 || strict && cmp == 0 ? 1 : 0);
+        }
+
+        // drop the right turns made after the last left one, that left turn is the answer
+        node >>= Integer.numberOfTrailingZeros(~node) + 1;
+
+        return node == 0 ? ranks.length - 1 : ranks[node];
+    }
+}
@@ -0,0 +1,172 @@
+package info.kgeorgiy.ja.sinitsyn.arrayset;
+
+import java.util.*;
+
+/**
+ * Immutable navigable set of {@code int} values stored in one sorted {@code int[]}.
+ * Besides the boxed {@link NavigableSet} methods there are unboxed queries that do not
+ * allocate at all. Unboxed navigation methods throw {@link NoSuchElementException}
+ * where the boxed ones return {@code null}.
+ *
+ * @author AlexSin
+ */
+public class IntArraySet extends AbstractPrimitiveArraySet<Integer> {
+
+    private final int[] elements;
+
+    /**
+     * Creates set of the given values. Duplicates are dropped
+     *
+     * @param values values in any order
+     */
+    public IntArraySet(final int... values) {
+        this(distinct(values.clone()), false);
+    }
+
+    /**
+     * Creates set of the given values. Duplicates are dropped
+     *
+     * @param collection values in any order
+     */
+    public IntArraySet(final Collection<? extends Integer> collection) {
+        this(distinct(collection.stream().mapToInt(Integer::intValue).toArray()), false);
+    }
+
+    private IntArraySet(final int[] elements, final boolean reversed) {
+        this(elements, 0, elements.length, reversed);
+    }
+
+    private IntArraySet(final int[] elements, final int from, final int to, final boolean reversed) {
+        super(from, to, reversed);
+
+        this.elements = elements;
+    }
+
+    private static int[] distinct(final int[] values) {
+        Arrays.sort(values);
+
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    @Override
+    protected long keyAt(final int index) {
+        return elements[index];
+    }
+
+    @Override
+    protected long key(final Integer e) {
+        return e;
+    }
+
+    @Override
+    protected Integer elementAt(final int index) {
+        return elements[index];
+    }
+
+    @Override
+    protected IntArraySet view(final int from, final int to, final boolean reversed) {
+        return new IntArraySet(elements, from, to, reversed);
+    }
+
+    /**
+     * Checks whether the value belongs to this set
+     *
+     * @param e value to search for
+     *
+     * @return {@code true} if the set contains {@code e}
+     */
+    public boolean contains(final int e) {
+        return containsKey(e);
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        return obj instanceof Integer e && contains(e.intValue());
+    }
+
+    /**
+     * Unboxed {@link #lower(Integer)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the greatest value strictly less than {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public int lower(final int e) {
+        return elements[navigate(false, true, e)];
+    }
+
+    /**
+     * Unboxed {@link #floor(Integer)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the greatest value less than or equal to {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public int floor(final int e) {
+        return elements[navigate(true, true, e)];
+    }
+
+    /**
+     * Unboxed {@link #ceiling(Integer)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the least value greater than or equal to {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public int ceiling(final int e) {
+        return elements[navigate(true, false, e)];
+    }
+
+    /**
+     * Unboxed {@link #higher(Integer)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the least value strictly greater than {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public int higher(final int e) {
+        return elements[navigate(false, false, e)];
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        final PrimitiveIterator.OfInt indices = indices();
+
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return indices.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return elements[indices.nextInt()];
+            }
+        };
+    }
+
+    @Override
+    public IntArraySet descendingSet() {
+        return view(from, to, !reversed);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt descendingIterator() {
+        return descendingSet().iterator();
+    }
+}
@@ -0,0 +1,137 @@
+package info.kgeorgiy.ja.sinitsyn.arrayset;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+/**
+ * Binary format of fixed-width keys for {@link MappedArraySet}
+ *
+ * @param <E> key type
+ *
+ * @author AlexSin
+ */
+public interface KeyCodec<E> {
+
+    /** Keys of type {@code long}, 8 bytes, big-endian, natural order */
+    KeyCodec<Long> LONG = new KeyCodec<>() {
+        @Override
+        public int width() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public Long read(final ByteBuffer buffer, final int offset) {
+            return buffer.getLong(offset);
+        }
+
+        @Override
+        public void write(final ByteBuffer buffer, final int offset, final Long key) {
+            buffer.putLong(offset, key);
+        }
+
+        @Override
+        public int compare(final ByteBuffer buffer, final int offset, final Long key) {
+            return Long.compare(buffer.getLong(offset), key);
+        }
+    };
+
+    /** Keys of type {@code int}, 4 bytes, big-endian, natural order */
+    KeyCodec<Integer> INT = new KeyCodec<>() {
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public Integer read(final ByteBuffer buffer, final int offset) {
+            return buffer.getInt(offset);
+        }
+
+        @Override
+        public void write(final ByteBuffer buffer, final int offset, final Integer key) {
+            buffer.putInt(offset, key);
+        }
+
+        @Override
+        public int compare(final ByteBuffer buffer, final int offset, final Integer key) {
+            return Integer.compare(buffer.getInt(offset), key);
+        }
+    };
+
+    /** Keys of type {@code double}, 8 bytes, big-endian, ordered as by {@link Double#compare(double, double)} */
+    KeyCodec<Double> DOUBLE = new KeyCodec<>() {
+        @Override
+        public int width() {
+            return Double.BYTES;
+        }
+
+        @Override
+        public Double read(final ByteBuffer buffer, final int offset) {
+            return buffer.getDouble(offset);
+        }
+
+        @Override
+        public void write(final ByteBuffer buffer, final int offset, final Double key) {
+            buffer.putDouble(offset, key);
+        }
+
+        @Override
+        public int compare(final ByteBuffer buffer, final int offset, final Double key) {
+            return Double.compare(buffer.getDouble(offset), key);
+        }
+    };
+
+    /**
+     * Returns size of one encoded key
+     *
+     * @return width in bytes
+     */
+    int width();
+
+    /**
+     * Decodes key
+     *
+     * @param buffer buffer to read from
+     * @param offset absolute offset of the key
+     *
+     * @return decoded key
+     */
+    E read(final ByteBuffer buffer, final int offset);
+
+    /**
+     * Encodes key
+     *
+     * @param buffer buffer to write to
+     * @param offset absolute offset of the key
+     * @param key key to encode
+     */
+    void write(final ByteBuffer buffer, final int offset, final E key);
+
+    /**
+     * Returns order of encoded keys
+     *
+     * @return comparator, {@code null} for natural ordering
+     */
+    default Comparator<? super E> comparator() {
+        return null;
+    }
+
+    /**
+     * Compares encoded key with the given one. Codecs may override it to compare
+     * without decoding
+     *
+     * @param buffer buffer to read from
+     * @param offset absolute offset of the encoded key
+     * @param key key to compare with
+     *
+     * @return result of comparison of the encoded key with {@code key}
+     */
+    @SuppressWarnings("unchecked")
+    default int compare(final ByteBuffer buffer, final int offset, final E key) {
+        final Comparator<? super E> comparator = comparator();
+
+        return comparator == null
+                ? ((Comparable<? super E>) read(buffer, offset)).compareTo(key)
+                : comparator.compare(read(buffer, offset), key);
+    }
+}
@@ -0,0 +1,172 @@
+package info.kgeorgiy.ja.sinitsyn.arrayset;
+
+import java.util.*;
+
+/**
+ * Immutable navigable set of {@code long} values stored in one sorted {@code long[]}.
+ * Besides the boxed {@link NavigableSet} methods there are unboxed queries that do not
+ * allocate at all. Unboxed navigation methods throw {@link NoSuchElementException}
+ * where the boxed ones return {@code null}.
+ *
+ * @author AlexSin
+ */
+public class LongArraySet extends AbstractPrimitiveArraySet<Long> {
+
+    private final long[] elements;
+
+    /**
+     * Creates set of the given values. Duplicates are dropped
+     *
+     * @param values values in any order
+     */
+    public LongArraySet(final long... values) {
+        this(distinct(values.clone()), false);
+    }
+
+    /**
+     * Creates set of the given values. Duplicates are dropped
+     *
+     * @param collection values in any order
+     */
+    public LongArraySet(final Collection<? extends Long> collection) {
+        this(distinct(collection.stream().mapToLong(Long::longValue).toArray()), false);
+    }
+
+    private LongArraySet(final long[] elements, final boolean reversed) {
+        this(elements, 0, elements.length, reversed);
+    }
+
+    private LongArraySet(final long[] elements, final int from, final int to, final boolean reversed) {
+        super(from, to, reversed);
+
+        this.elements = elements;
+    }
+
+    private static long[] distinct(final long[] values) {
+        Arrays.sort(values);
+
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    @Override
+    protected long keyAt(final int index) {
+        return elements[index];
+    }
+
+    @Override
+    protected long key(final Long e) {
+        return e;
+    }
+
+    @Override
+    protected Long elementAt(final int index) {
+        return elements[index];
+    }
+
+    @Override
+    protected LongArraySet view(final int from, final int to, final boolean reversed) {
+        return new LongArraySet(elements, from, to, reversed);
+    }
+
+    /**
+     * Checks whether the value belongs to this set
+     *
+     * @param e value to search for
+     *
+     * @return {@code true} if the set contains {@code e}
+     */
+    public boolean contains(final long e) {
+        return containsKey(e);
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        return obj instanceof Long e && contains(e.longValue());
+    }
+
+    /**
+     * Unboxed {@link #lower(Long)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the greatest value strictly less than {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public long lower(final long e) {
+        return elements[navigate(false, true, e)];
+    }
+
+    /**
+     * Unboxed {@link #floor(Long)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the greatest value less than or equal to {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public long floor(final long e) {
+        return elements[navigate(true, true, e)];
+    }
+
+    /**
+     * Unboxed {@link #ceiling(Long)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the least value greater than or equal to {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public long ceiling(final long e) {
+        return elements[navigate(true, false, e)];
+    }
+
+    /**
+     * Unboxed {@link #higher(Long)}
+     *
+     * @param e value to navigate from
+     *
+     * @return the least value strictly greater than {@code e}
+     *
+     * @throws NoSuchElementException if there is no such value
+     */
+    public long higher(final long e) {
+        return elements[navigate(false, false, e)];
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        final PrimitiveIterator.OfInt indices = indices();
+
+        return new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                return indices.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return elements[indices.nextInt()];
+            }
+        };
+    }
+
+    @Override
+    public LongArraySet descendingSet() {
+        return view(from, to, !reversed);
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong descendingIterator() {
+        return descendingSet().iterator();
+    }
+}
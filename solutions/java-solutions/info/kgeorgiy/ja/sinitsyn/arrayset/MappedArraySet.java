@@ -0,0 +1,168 @@
+package info.kgeorgiy.ja.sinitsyn.arrayset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Immutable navigable set answering queries directly against a memory-mapped file of
+ * sorted distinct fixed-width keys. Keys stay off the Java heap: they are decoded only
+ * when returned, and the same file may be mapped by several processes at once.
+ * The mapping is released when the set and all its views become unreachable.
+ *
+ * @param <E> key type
+ *
+ * @author AlexSin
+ * @see KeyCodec
+ */
+@SuppressWarnings("unchecked")
+public class MappedArraySet<E> extends AbstractArraySet<E> {
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final ByteBuffer[] chunks;
+    private final int keysPerChunk;
+    private final KeyCodec<E> codec;
+
+    private MappedArraySet(final ByteBuffer[] chunks, final int keysPerChunk, final KeyCodec<E> codec,
+                           final int from, final int to, final boolean reversed) {
+        super(from, to, reversed);
+
+        this.chunks = chunks;
+        this.keysPerChunk = keysPerChunk;
+        this.codec = codec;
+    }
+
+    /**
+     * Maps file written by {@link #write(Path, Collection, KeyCodec)} or by any other tool
+     * that uses the same format
+     *
+     * @param file file of sorted distinct keys encoded by {@code codec}
+     * @param codec format of keys
+     * @param <E> key type
+     *
+     * @return set over the mapped file
+     *
+     * @throws IOException if the file can not be mapped
+     * @throws IllegalArgumentException if the file size is not a multiple of the key width
+     */
+    public static <E> MappedArraySet<E> open(final Path file, final KeyCodec<E> codec) throws IOException {
+        final int width = codec.width();
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size % width != 0) {
+                throw new IllegalArgumentException("File size " + size + " is not a multiple of key width " + width);
+            }
+            if (size / width > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many keys: " + size / width);
+            }
+
+            // one mapping can not exceed 2GB, keys never cross chunk boundaries
+            final int keysPerChunk = Integer.MAX_VALUE / width;
+            final long chunkSize = (long) keysPerChunk * width;
+            final ByteBuffer[] chunks = new ByteBuffer[(int) ((size + chunkSize - 1) / chunkSize)];
+            for (int i = 0; i < chunks.length; i++) {
+                final long position = i * chunkSize;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, size - position));
+            }
+
+            return new MappedArraySet<>(chunks, keysPerChunk, codec, 0, (int) (size / width), false);
+        }
+    }
+
+    /**
+     * Writes keys to the file in the format expected by {@link #open(Path, KeyCodec)}.
+     * Keys are sorted by {@link KeyCodec#comparator()} and deduplicated
+     *
+     * @param file file to write, it is created or truncated
+     * @param keys keys in any order
+     * @param codec format of keys
+     * @param <E> key type
+     *
+     * @throws IOException if the file can not be written
+     */
+    public static <E> void write(final Path file, final Collection<? extends E> keys, final KeyCodec<E> codec) throws IOException {
+        final int width = codec.width();
+        final ByteBuffer buffer = ByteBuffer.allocate(Math.max(width, WRITE_BUFFER_SIZE / width * width));
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (final E key : new ArraySet<E>(keys, codec.comparator())) {
+                if (buffer.remaining() < width) {
+                    flush(channel, buffer);
+                }
+
+                codec.write(buffer, buffer.position(), key);
+                buffer.position(buffer.position() + width);
+            }
+
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private ByteBuffer chunk(final int index) {
+        return chunks[index / keysPerChunk];
+    }
+
+    private int offset(final int index) {
+        return index % keysPerChunk * codec.width();
+    }
+
+    @Override
+    protected E elementAt(final int index) {
+        return codec.read(chunk(index), offset(index));
+    }
+
+    @Override
+    protected int bound(final E e, final boolean strict) {
+        int lo = from;
+        int hi = to;
+
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int cmp = codec.compare(chunk(mid), offset(mid), e);
+
+            if (cmp < 0 || strict && cmp == 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+
+    @Override
+    protected MappedArraySet<E> view(final int from, final int to, final boolean reversed) {
+        return new MappedArraySet<>(chunks, keysPerChunk, codec, from, to, reversed);
+    }
+
+    @Override
+    protected Comparator<? super E> storageComparator() {
+        return codec.comparator();
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        if (obj == null) {
+            return false;
+        }
+
+        final int index = bound((E) obj, false);
+
+        return index < to && codec.compare(chunk(index), offset(index), (E) obj) == 0;
+    }
+}
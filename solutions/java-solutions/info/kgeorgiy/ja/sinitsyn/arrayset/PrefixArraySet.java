@@ -0,0 +1,364 @@
+package info.kgeorgiy.ja.sinitsyn.arrayset;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Immutable navigable set of strings stored front-coded in one {@code byte[]}. Keys are
+ * grouped in blocks; the first key of a block (a restart point) is stored in full, every
+ * other one as the length of the prefix shared with the previous key and the rest of its
+ * UTF-8 bytes. Search is a binary search over restart points followed by a linear decode
+ * inside one block, so it stays logarithmic, while sorted keys with long common prefixes
+ * (URLs, paths) take several times less memory than separate {@link String} objects.
+ * With natural ordering, lookups compare UTF-8 bytes of the keys in place, without
+ * decoding them into strings.
+ *
+ * @author AlexSin
+ */
+public class PrefixArraySet extends AbstractArraySet<String> {
+
+    private static final int DEFAULT_BLOCK_SIZE = 16;
+
+    private final byte[] data;
+    private final int[] restarts;
+    private final int blockSize;
+    private final int maxKeyLength;
+    private final int size;
+    private final Comparator<? super String> comparator;
+    private final Comparator<? super String> order;
+    /** Whether UTF-8 bytes of the keys are in the order of the set: natural ordering without surrogates */
+    private final boolean bytewise;
+
+    /**
+     * Creates set with natural ordering of strings
+     *
+     * @param collection strings in any order, duplicates are dropped
+     */
+    public PrefixArraySet(final Collection<String> collection) {
+        this(collection, null);
+    }
+
+    /**
+     * Creates set with the default block size
+     *
+     * @param collection strings in any order, duplicates are dropped
+     * @param comparator order of strings, {@code null} for natural ordering
+     */
+    public PrefixArraySet(final Collection<String> collection, final Comparator<? super String> comparator) {
+        this(collection, comparator, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates set
+     *
+     * @param collection strings in any order, duplicates are dropped
+     * @param comparator order of strings, {@code null} for natural ordering
+     * @param blockSize number of keys between restart points. Larger blocks compress
+     *                  better but make every lookup decode more keys
+     */
+    public PrefixArraySet(final Collection<String> collection, final Comparator<? super String> comparator, final int blockSize) {
+        this(new Encoder(new ArraySet<>(collection, comparator), blockSize), comparator, blockSize);
+    }
+
+    private PrefixArraySet(final Encoder encoder, final Comparator<? super String> comparator, final int blockSize) {
+        this(encoder.toByteArray(), encoder.restarts, blockSize, encoder.maxKeyLength, encoder.size, comparator,
+                comparator == null && !encoder.surrogates, 0, encoder.size, false);
+    }
+
+    private PrefixArraySet(final byte[] data, final int[] restarts, final int blockSize, final int maxKeyLength,
+                           final int size, final Comparator<? super String> comparator, final boolean bytewise,
+                           final int from, final int to, final boolean reversed) {
+        super(from, to, reversed);
+
+        this.data = data;
+        this.restarts = restarts;
+        this.blockSize = blockSize;
+        this.maxKeyLength = maxKeyLength;
+        this.size = size;
+        this.comparator = comparator;
+        this.order = comparator == null ? Comparator.naturalOrder() : comparator;
+        this.bytewise = bytewise;
+    }
+
+    /**
+     * UTF-8 orders by code points and {@link String#compareTo} by UTF-16 units,
+     * they differ only for supplementary characters
+     */
+    private static boolean hasSurrogates(final String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (Character.isSurrogate(key.charAt(i))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static final class Encoder {
+        private byte[] data = new byte[64];
+        private int length = 0;
+        private final int[] restarts;
+        private int maxKeyLength = 0;
+        private int size = 0;
+        private boolean surrogates = false;
+
+        private Encoder(final Collection<String> sorted, final int blockSize) {
+            if (blockSize <= 0) {
+                throw new IllegalArgumentException("Block size should be positive: " + blockSize);
+            }
+
+            restarts = new int[(sorted.size() + blockSize - 1) / blockSize];
+
+            byte[] previous = new byte[0];
+            for (final String key : sorted) {
+                final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+
+                int shared = 0;
+                if (size % blockSize == 0) {
+                    restarts[size / blockSize] = length;
+                } else {
+                    final int limit = Math.min(previous.length, bytes.length);
+                    while (shared < limit && previous[shared] == bytes[shared]) {
+                        shared++;
+                    }
+                }
+
+                writeVarInt(shared);
+                writeVarInt(bytes.length - shared);
+                write(bytes, shared, bytes.length - shared);
+
+                maxKeyLength = Math.max(maxKeyLength, bytes.length);
+                surrogates |= hasSurrogates(key);
+                previous = bytes;
+                size++;
+            }
+        }
+
+        private void ensureCapacity(final int extra) {
+            if (length + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+            }
+        }
+
+        private void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        private void write(final byte[] bytes, final int offset, final int count) {
+            ensureCapacity(count);
+            System.arraycopy(bytes, offset, data, length, count);
+            length += count;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+    }
+
+    /** Sequential reader of the keys of one block, moved between blocks by {@link #seek(int)} */
+    private final class Cursor {
+        private final byte[] key = new byte[maxKeyLength];
+        private int keyLength;
+        private int offset;
+        private int index;
+
+        /** Moves to the restart point of the block */
+        private void seek(final int block) {
+            offset = restarts[block];
+            index = block * blockSize;
+        }
+
+        /** Decodes the key at {@link #index} and moves to the next one */
+        private void advance() {
+            final int shared = readVarInt();
+            final int suffix = readVarInt();
+
+            System.arraycopy(data, offset, key, shared, suffix);
+            offset += suffix;
+            keyLength = shared + suffix;
+            index++;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                final byte b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        private String key() {
+            return new String(key, 0, keyLength, StandardCharsets.UTF_8);
+        }
+
+        /** Compares the decoded key with the given UTF-8 bytes as unsigned bytes */
+        private int compareTo(final byte[] bytes) {
+            return Arrays.compareUnsigned(key, 0, keyLength, bytes, 0, bytes.length);
+        }
+    }
+
+    private int blocks() {
+        return restarts.length;
+    }
+
+    private int blockEnd(final int block) {
+        return Math.min(size, (block + 1) * blockSize);
+    }
+
+    @Override
+    protected String elementAt(final int index) {
+        final Cursor cursor = new Cursor();
+        cursor.seek(index / blockSize);
+        while (cursor.index <= index) {
+            cursor.advance();
+        }
+
+        return cursor.key();
+    }
+
+    /** Compares the key under the cursor with e, {@code bytes} are UTF-8 bytes of e or {@code null} */
+    private int compare(final Cursor cursor, final String e, final byte[] bytes) {
+        return bytes != null ? cursor.compareTo(bytes) : order.compare(cursor.key(), e);
+    }
+
+    private static boolean isBefore(final int cmp, final boolean strict) {
+        return cmp < 0 || strict && cmp == 0;
+    }
+
+    /**
+     * Finds the first key that is not before e. One cursor decodes all the probed keys,
+     * and with natural ordering they are compared as bytes, so no strings are built
+     *
+     * @return index of the key if it is equal to e, {@code -index - 1} otherwise
+     */
+    private int search(final String e, final boolean strict) {
+        if (size == 0) {
+            return -1;
+        }
+
+        final byte[] bytes = bytewise && !hasSurrogates(e) ? e.getBytes(StandardCharsets.UTF_8) : null;
+        final Cursor cursor = new Cursor();
+
+        // the first block whose restart key is not before e
+        int lo = 0;
+        int hi = blocks();
+        int hiCmp = 1;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            cursor.seek(mid);
+            cursor.advance();
+
+            final int cmp = compare(cursor, e, bytes);
+            if (isBefore(cmp, strict)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+                hiCmp = cmp;
+            }
+        }
+
+        if (lo > 0) {
+            // the answer is in the previous block after its restart key, or the restart of block lo
+            cursor.seek(lo - 1);
+            cursor.advance();
+            while (cursor.index < blockEnd(lo - 1)) {
+                cursor.advance();
+
+                final int cmp = compare(cursor, e, bytes);
+                if (!isBefore(cmp, strict)) {
+                    final int index = cursor.index - 1;
+                    return cmp == 0 ? index : -index - 1;
+                }
+            }
+        }
+
+        final int index = lo * blockSize;
+        return lo < blocks() && hiCmp == 0 ? index : -index - 1;
+    }
+
+    @Override
+    protected int bound(final String e, final boolean strict) {
+        final int index = search(e, strict);
+
+        return Math.max(from, Math.min(to, index < 0 ? -index - 1 : index));
+    }
+
+    @Override
+    protected PrefixArraySet view(final int from, final int to, final boolean reversed) {
+        return new PrefixArraySet(data, restarts, blockSize, maxKeyLength, size, comparator, bytewise, from, to, reversed);
+    }
+
+    @Override
+    protected Comparator<? super String> storageComparator() {
+        return comparator;
+    }
+
+    @Override
+    public PrefixArraySet descendingSet() {
+        return view(from, to, !reversed);
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        if (!(obj instanceof String e)) {
+            return false;
+        }
+
+        final int index = search(e, false);
+
+        return from <= index && index < to;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        // every block is decoded once, in either direction
+        return new Iterator<>() {
+            private final String[] block = new String[blockSize];
+            private int decoded = -1;
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("no more elements");
+                }
+
+                final int index = raw(position++);
+                if (decoded != index / blockSize) {
+                    decoded = index / blockSize;
+
+                    final Cursor cursor = new Cursor();
+                    cursor.seek(decoded);
+                    for (int i = 0; cursor.index < blockEnd(decoded); i++) {
+                        cursor.advance();
+                        block[i] = cursor.key();
+                    }
+                }
+
+                return block[index % blockSize];
+            }
+        };
+    }
+
+    /**
+     * Returns size of the encoded keys
+     *
+     * @return number of bytes used by keys and restart points
+     */
+    public long encodedSize() {
+        return data.length + (long) restarts.length * Integer.BYTES;
+    }
+}
@@ -0,0 +1,187 @@
+package info.kgeorgiy.ja.sinitsyn.arrayset;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Threadsafe sorted set that changes through batched updates. Every update builds a new
+ * immutable {@link ArraySet} by merging the batch into the current one and publishes it
+ * together with the next version number. Readers only read a volatile reference, so they
+ * never block and always see a consistent snapshot.
+ *
+ * @param <E> element type
+ *
+ * @author AlexSin
+ */
+public class VersionedArraySet<E> {
+
+    /**
+     * Published state of the set
+     *
+     * @param version number of updates applied before the snapshot was published
+     * @param set immutable contents of the set
+     * @param <E> element type
+     */
+    public record Snapshot<E>(long version, ArraySet<E> set) {}
+
+    private final Comparator<? super E> comparator;
+    private volatile Snapshot<E> current;
+
+    /**
+     * Creates empty set
+     *
+     * @param comparator order of elements, {@code null} for natural ordering
+     */
+    public VersionedArraySet(final Comparator<? super E> comparator) {
+        this(List.of(), comparator, ArraySet.Layout.SORTED);
+    }
+
+    /**
+     * Creates set of the given elements with version {@code 0}
+     *
+     * @param collection initial elements
+     * @param comparator order of elements, {@code null} for natural ordering
+     * @param layout search layout of the published snapshots
+     */
+    public VersionedArraySet(final Collection<? extends E> collection, final Comparator<? super E> comparator,
+                             final ArraySet.Layout layout) {
+        this.comparator = comparator;
+        this.current = new Snapshot<>(0, new ArraySet<>(collection, comparator, layout));
+    }
+
+    /**
+     * Returns the latest published state. Never blocks
+     *
+     * @return current snapshot
+     */
+    public Snapshot<E> current() {
+        return current;
+    }
+
+    /**
+     * Returns contents of the latest published state. Never blocks
+     *
+     * @return current immutable set
+     */
+    public ArraySet<E> snapshot() {
+        return current.set();
+    }
+
+    /**
+     * Returns the latest published version. Never blocks
+     *
+     * @return current version
+     */
+    public long version() {
+        return current.version();
+    }
+
+    /**
+     * Applies one batch of changes. Takes {@code O(n + k log k)} time for the set of size
+     * {@code n} and the batch of size {@code k}. Concurrent updates are applied one after
+     * another
+     *
+     * @param inserts elements to add
+     * @param deletes elements to remove, they win over {@code inserts}
+     *
+     * @return version of the snapshot containing the batch
+     */
+    public synchronized long update(final Collection<? extends E> inserts, final Collection<? extends E> deletes) {
+        ArraySet<E> set = current.set();
+        if (!inserts.isEmpty()) {
+            set = set.withAll(inserts);
+        }
+        if (!deletes.isEmpty()) {
+            set = set.minus(new ArraySet<>(deletes, comparator));
+        }
+
+        current = new Snapshot<>(current.version() + 1, set);
+        notifyAll();
+
+        return current.version();
+    }
+
+    /**
+     * Adds elements in one batch
+     *
+     * @param inserts elements to add
+     *
+     * @return version of the snapshot containing the batch
+     *
+     * @see #update(Collection, Collection)
+     */
+    public long insertAll(final Collection<? extends E> inserts) {
+        return update(inserts, List.of());
+    }
+
+    /**
+     * Removes elements in one batch
+     *
+     * @param deletes elements to remove
+     *
+     * @return version of the snapshot containing the batch
+     *
+     * @see #update(Collection, Collection)
+     */
+    public long deleteAll(final Collection<? extends E> deletes) {
+        return update(List.of(), deletes);
+    }
+
+    /**
+     * Waits until the given version is published
+     *
+     * @param version version to wait for
+     *
+     * @return snapshot with version not less than {@code version}
+     *
+     * @throws InterruptedException if waiting thread was interrupted
+     */
+    public Snapshot<E> awaitVersion(final long version) throws InterruptedException {
+        Snapshot<E> snapshot = current;
+        if (snapshot.version() >= version) {
+            return snapshot;
+        }
+
+        synchronized (this) {
+            while ((snapshot = current).version() < version) {
+                wait();
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Waits until the given version is published or the timeout elapses
+     *
+     * @param version version to wait for
+     * @param timeout maximum time to wait
+     * @param unit unit of {@code timeout}
+     *
+     * @return snapshot with version not less than {@code version} or {@code null} if the timeout elapsed
+     *
+     * @throws InterruptedException if waiting thread was interrupted
+     */
+    public Snapshot<E> awaitVersion(final long version, final long timeout, final TimeUnit unit) throws InterruptedException {
+        Snapshot<E> snapshot = current;
+        if (snapshot.version() >= version) {
+            return snapshot;
+        }
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while ((snapshot = current).version() < version) {
+                final long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return null;
+                }
+
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            }
+        }
+
+        return snapshot;
+    }
+}
@@ -0,0 +1,247 @@
+package info.kgeorgiy.ja.sinitsyn.benchmarks;
+
+import info.kgeorgiy.ja.sinitsyn.arrayset.ArraySet;
+import info.kgeorgiy.ja.sinitsyn.arrayset.IntArraySet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Compares {@link ArraySet} with {@link TreeSet}, {@link ConcurrentSkipListSet} and
+ * binary search over a plain sorted array. Covers construction from sorted and random
+ * input, {@code contains}, {@code floor}/{@code ceiling}, chained views and iteration
+ * over sizes from 1K to 10M elements with natural and custom ordering.
+ *
+ * <p>Usage: {@code ArraySetBenchmark [--sizes 1000,10000] [options]}, see {@link Benchmarks}
+ * for the rest of the options.
+ *
+ * @author AlexSin
+ */
+public final class ArraySetBenchmark {
+
+    private static final Comparator<Integer> CUSTOM = Comparator.comparingInt((Integer i) -> i).reversed();
+    private static final int KEYS = 1 << 16;
+
+    /** Operations under test over one implementation */
+    private interface Subject {
+        boolean contains(Integer key);
+
+        Integer floor(Integer key);
+
+        Integer ceiling(Integer key);
+
+        /** Applies {@code subSet} and {@code descendingSet} views and takes the first element */
+        Integer views(Integer from, Integer to);
+
+        long iterate();
+    }
+
+    private record NavigableSubject(NavigableSet<Integer> set) implements Subject {
+        @Override
+        public boolean contains(final Integer key) {
+            return set.contains(key);
+        }
+
+        @Override
+        public Integer floor(final Integer key) {
+            return set.floor(key);
+        }
+
+        @Override
+        public Integer ceiling(final Integer key) {
+            return set.ceiling(key);
+        }
+
+        @Override
+        public Integer views(final Integer from, final Integer to) {
+            final NavigableSet<Integer> view = set.subSet(from, true, to, true).descendingSet().subSet(to, false, from, false);
+
+            return view.isEmpty() ? null : view.first();
+        }
+
+        @Override
+        public long iterate() {
+            long sum = 0;
+            for (final Integer e : set) {
+                sum += e;
+            }
+
+            return sum;
+        }
+    }
+
+    /** Baseline: {@link Arrays#binarySearch} over a sorted array */
+    private record ArraySubject(Integer[] array, Comparator<Integer> comparator) implements Subject {
+        private static ArraySubject of(final List<Integer> values, final Comparator<Integer> comparator) {
+            final Integer[] array = values.toArray(Integer[]::new);
+            Arrays.sort(array, comparator);
+
+            int size = 0;
+            for (final Integer e : array) {
+                if (size == 0 || !array[size - 1].equals(e)) {
+                    array[size++] = e;
+                }
+            }
+
+            return new ArraySubject(Arrays.copyOf(array, size), comparator);
+        }
+
+        private int insertion(final Integer key) {
+            final int index = Arrays.binarySearch(array, key, comparator);
+
+            return index < 0 ? -index - 1 : index;
+        }
+
+        @Override
+        public boolean contains(final Integer key) {
+            return Arrays.binarySearch(array, key, comparator) >= 0;
+        }
+
+        @Override
+        public Integer floor(final Integer key) {
+            final int index = Arrays.binarySearch(array, key, comparator);
+            final int floor = index >= 0 ? index : -index - 2;
+
+            return floor < 0 ? null : array[floor];
+        }
+
+        @Override
+        public Integer ceiling(final Integer key) {
+            final int index = insertion(key);
+
+            return index < array.length ? array[index] : null;
+        }
+
+        @Override
+        public Integer views(final Integer from, final Integer to) {
+            // the greatest element strictly between from and to
+            final int found = Arrays.binarySearch(array, from, comparator);
+            final int lo = found >= 0 ? found + 1 : -found - 1;
+            final int hi = insertion(to) - 1;
+
+            return hi >= lo ? array[hi] : null;
+        }
+
+        @Override
+        public long iterate() {
+            long sum = 0;
+            for (final Integer e : array) {
+                sum += e;
+            }
+
+            return sum;
+        }
+    }
+
+    private ArraySetBenchmark() {
+    }
+
+    private static Map<String, Function<List<Integer>, Subject>> implementations(final Comparator<Integer> comparator) {
+        final Map<String, Function<List<Integer>, Subject>> implementations = new LinkedHashMap<>();
+        implementations.put("ArraySet", values -> new NavigableSubject(new ArraySet<>(values, comparator)));
+        implementations.put("ArraySet/Eytzinger", values ->
+                new NavigableSubject(new ArraySet<>(values, comparator, ArraySet.Layout.EYTZINGER)));
+        if (comparator == null) {
+            implementations.put("IntArraySet", values -> new NavigableSubject(new IntArraySet(values)));
+        }
+        implementations.put("TreeSet", values -> {
+            final TreeSet<Integer> set = new TreeSet<>(comparator);
+            set.addAll(values);
+            return new NavigableSubject(set);
+        });
+        implementations.put("ConcurrentSkipListSet", values -> {
+            final ConcurrentSkipListSet<Integer> set = new ConcurrentSkipListSet<>(comparator);
+            set.addAll(values);
+            return new NavigableSubject(set);
+        });
+        implementations.put("SortedArray", values -> ArraySubject.of(values,
+                comparator == null ? Comparator.naturalOrder() : comparator));
+
+        return implementations;
+    }
+
+    /**
+     * Runs the benchmarks
+     *
+     * @param args options, see {@link Benchmarks}
+     */
+    public static void main(final String[] args) {
+        try (final Benchmarks benchmarks = new Benchmarks(args)) {
+            final Random random = new Random(8682522807148012L);
+
+            for (final int size : benchmarks.ints("sizes", 1_000, 10_000, 100_000, 1_000_000, 10_000_000)) {
+                final List<Integer> randomValues = random.ints(size, 0, 2 * size).boxed().toList();
+                final Integer[] keys = random.ints(KEYS, -1, 2 * size + 1).boxed().toArray(Integer[]::new);
+
+                for (final Comparator<Integer> comparator : Arrays.asList(null, CUSTOM)) {
+                    final List<Integer> sortedValues = new ArrayList<>(randomValues);
+                    sortedValues.sort(comparator);
+
+                    for (final var implementation : implementations(comparator).entrySet()) {
+                        final Map<String, Object> params = new LinkedHashMap<>();
+                        params.put("implementation", implementation.getKey());
+                        params.put("comparator", comparator == null ? "natural" : "custom");
+                        params.put("size", size);
+
+                        run(benchmarks, implementation.getValue(), params, randomValues, sortedValues, keys);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void run(final Benchmarks benchmarks, final Function<List<Integer>, Subject> factory,
+                            final Map<String, Object> params, final List<Integer> randomValues,
+                            final List<Integer> sortedValues, final Integer[] keys) {
+        benchmarks.measure("constructSorted", params, ops -> {
+            long result = 0;
+            for (long i = 0; i < ops; i++) {
+                // identity hash: hashCode of the subjects would add an O(n) walk to some of them
+                result += System.identityHashCode(factory.apply(sortedValues));
+            }
+            return result;
+        });
+        benchmarks.measure("constructRandom", params, ops -> {
+            long result = 0;
+            for (long i = 0; i < ops; i++) {
+                result += System.identityHashCode(factory.apply(randomValues));
+            }
+            return result;
+        });
+
+        final Subject subject = factory.apply(randomValues);
+        benchmarks.measure("contains", params, ops -> {
+            long result = 0;
+            for (long i = 0; i < ops; i++) {
+                result += subject.contains(keys[(int) (i & (KEYS - 1))]) ? 1 : 0;
+            }
+            return result;
+        });
+        benchmarks.measure("floorCeiling", params, ops -> {
+            long result = 0;
+            for (long i = 0; i < ops; i++) {
+                final Integer key = keys[(int) (i & (KEYS - 1))];
+                result += Objects.hashCode(subject.floor(key)) + Objects.hashCode(subject.ceiling(key));
+            }
+            return result;
+        });
+        final Comparator<Integer> comparator = "custom".equals(params.get("comparator")) ? CUSTOM : Comparator.naturalOrder();
+        benchmarks.measure("views", params, ops -> {
+            long result = 0;
+            for (long i = 0; i < ops; i++) {
+                final Integer a = keys[(int) (i & (KEYS - 1))];
+                final Integer b = keys[(int) ((i + 1) & (KEYS - 1))];
+                result += Objects.hashCode(comparator.compare(a, b) <= 0 ? subject.views(a, b) : subject.views(b, a));
+            }
+            return result;
+        });
+        benchmarks.measure("iterate", params, ops -> {
+            long result = 0;
+            for (long i = 0; i < ops; i++) {
+                result += subject.iterate();
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,183 @@
+package info.kgeorgiy.ja.sinitsyn.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.LongUnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Minimal benchmark harness in the spirit of JMH: every benchmark is warmed up, then
+ * measured over several iterations of fixed duration, and its results are consumed
+ * so the JIT can not drop the measured code. Results are written as CSV or JSON lines.
+ *
+ * <p>Common command line options of the benchmark programs:
+ * <ul>
+ *     <li>{@code --warmups N} &mdash; warmup iterations, {@code 3} by default</li>
+ *     <li>{@code --iterations N} &mdash; measured iterations, {@code 5} by default</li>
+ *     <li>{@code --time MS} &mdash; duration of one iteration, {@code 500} by default</li>
+ *     <li>{@code --filter REGEX} &mdash; run only benchmarks whose name matches</li>
+ *     <li>{@code --format csv|json} &mdash; result format, {@code csv} by default</li>
+ *     <li>{@code --output FILE} &mdash; write results to the file instead of the standard output</li>
+ *     <li>{@code --sizes N,N,...} &mdash; input sizes, if the benchmark has them</li>
+ * </ul>
+ *
+ * @author AlexSin
+ */
+public final class Benchmarks implements AutoCloseable {
+
+    private static volatile long sink;
+
+    private final Map<String, String> options;
+    private final int warmups;
+    private final int iterations;
+    private final long iterationNanos;
+    private final Pattern filter;
+    private final boolean json;
+    private final PrintStream out;
+    private boolean headerPrinted = false;
+
+    /**
+     * Parses command line options
+     *
+     * @param args command line arguments as pairs {@code --name value}
+     */
+    public Benchmarks(final String[] args) {
+        options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Option expected: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        warmups = Integer.parseInt(options.getOrDefault("warmups", "3"));
+        iterations = Integer.parseInt(options.getOrDefault("iterations", "5"));
+        iterationNanos = Long.parseLong(options.getOrDefault("time", "500")) * 1_000_000;
+        filter = Pattern.compile(options.getOrDefault("filter", ".*"));
+        json = "json".equals(options.getOrDefault("format", "csv"));
+
+        try {
+            out = options.containsKey("output")
+                    ? new PrintStream(Files.newOutputStream(Path.of(options.get("output"))), true, StandardCharsets.UTF_8)
+                    : System.out;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can not open output file", e);
+        }
+    }
+
+    /**
+     * Returns integer list option
+     *
+     * @param name option name
+     * @param defaults value if the option is absent
+     *
+     * @return parsed values
+     */
+    public int[] ints(final String name, final int... defaults) {
+        final String value = options.get(name);
+
+        return value == null ? defaults : Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * Keeps value alive, so the code computing it is not eliminated
+     *
+     * @param value value to consume
+     */
+    public static void consume(final long value) {
+        sink = value;
+    }
+
+    /**
+     * Keeps value alive, so the code computing it is not eliminated
+     *
+     * @param value value to consume
+     */
+    public static void consume(final Object value) {
+        sink = System.identityHashCode(value);
+    }
+
+    /**
+     * Checks whether benchmark is selected by {@code --filter}
+     *
+     * @param name benchmark name
+     *
+     * @return {@code true} if benchmark should be run
+     */
+    public boolean selected(final String name) {
+        return filter.matcher(name).find();
+    }
+
+    /**
+     * Measures average time of one operation
+     *
+     * @param name benchmark name
+     * @param params parameters of the benchmark, reported along with the score
+     * @param batch runs the given number of operations and returns any value depending
+     *              on their results
+     */
+    public void measure(final String name, final Map<String, ?> params, final LongUnaryOperator batch) {
+        if (!selected(name)) {
+            return;
+        }
+
+        long ops = 1;
+        long elapsed;
+        while ((elapsed = time(batch, ops)) < iterationNanos / 10) {
+            ops = Math.max(ops * 2, (long) (ops * (iterationNanos / 5.0) / Math.max(elapsed, 1)));
+        }
+        ops = Math.max(1, (long) (ops * (double) iterationNanos / elapsed));
+
+        for (int i = 0; i < warmups; i++) {
+            time(batch, ops);
+        }
+
+        final double[] scores = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            scores[i] = (double) time(batch, ops) / ops;
+        }
+
+        report(name, params, scores);
+    }
+
+    private static long time(final LongUnaryOperator batch, final long ops) {
+        final long start = System.nanoTime();
+        consume(batch.applyAsLong(ops));
+
+        return System.nanoTime() - start;
+    }
+
+    private void report(final String name, final Map<String, ?> params, final double[] scores) {
+        final double mean = Arrays.stream(scores).average().orElse(Double.NaN);
+        final double error = scores.length < 2 ? Double.NaN : Math.sqrt(Arrays.stream(scores)
+                .map(score -> (score - mean) * (score - mean)).sum() / (scores.length - 1));
+
+        if (json) {
+            out.println("{\"benchmark\": \"" + name + "\", \"params\": {"
+                    + params.entrySet().stream()
+                    .map(e -> "\"" + e.getKey() + "\": \"" + e.getValue() + "\"")
+                    .collect(Collectors.joining(", "))
+                    + "}, \"score\": " + mean + ", \"error\": " + error + ", \"unit\": \"ns/op\"}");
+        } else {
+            if (!headerPrinted) {
+                out.println("benchmark," + String.join(",", params.keySet()) + ",score,error,unit");
+                headerPrinted = true;
+            }
+            out.println(name + "," + params.values().stream().map(String::valueOf).collect(Collectors.joining(","))
+                    + "," + mean + "," + error + ",ns/op");
+        }
+    }
+
+    @Override
+    public void close() {
+        if (out != System.out) {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package info.kgeorgiy.ja.sinitsyn.benchmarks;
+
+import info.kgeorgiy.ja.sinitsyn.concurrent.IterativeParallelism;
+import info.kgeorgiy.ja.sinitsyn.concurrent.ParallelMapperImpl;
+import info.kgeorgiy.ja.sinitsyn.concurrent.VirtualThreadParallelMapper;
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Blocking-heavy {@code map} and {@code filter} of {@link IterativeParallelism}: every
+ * element blocks for a fixed latency, as a lookup in a local store would. Compares fresh
+ * platform threads per call, a pool of {@link ParallelMapperImpl} workers and virtual
+ * threads limited by a permit budget.
+ *
+ * <p>Usage: {@code BlockingWorkloadBenchmark [--threads 16] [--permits 1000] [--latency 1000]
+ * [--sizes 1000,10000] [options]}, latency is in microseconds, see {@link Benchmarks}
+ * for the rest of the options.
+ *
+ * @author AlexSin
+ */
+public final class BlockingWorkloadBenchmark {
+
+    private BlockingWorkloadBenchmark() {
+    }
+
+    /**
+     * Runs the benchmarks
+     *
+     * @param args options, see {@link Benchmarks}
+     */
+    public static void main(final String[] args) {
+        try (final Benchmarks benchmarks = new Benchmarks(args)) {
+            final int permits = benchmarks.ints("permits", 1000)[0];
+            final long latency = benchmarks.ints("latency", 1000)[0] * 1000L;
+
+            final Function<Integer, Integer> lookup = x -> {
+                LockSupport.parkNanos(latency);
+                return x * 31;
+            };
+            final Predicate<Integer> check = x -> {
+                LockSupport.parkNanos(latency);
+                return x % 3 == 0;
+            };
+
+            for (final int threads : benchmarks.ints("threads", 16)) {
+                final ParallelMapper pool = new ParallelMapperImpl(threads);
+
+                final Map<String, IterativeParallelism> modes = new LinkedHashMap<>();
+                modes.put("platform", new IterativeParallelism());
+                modes.put("pool", new IterativeParallelism(pool));
+                modes.put(VirtualThreadParallelMapper.isVirtual() ? "virtual" : "virtual-fallback",
+                        IterativeParallelism.virtual(permits));
+
+                for (final int size : benchmarks.ints("sizes", 1_000, 10_000)) {
+                    final List<Integer> values = IntStream.range(0, size).boxed().toList();
+
+                    for (final var mode : modes.entrySet()) {
+                        final Map<String, Object> params = new LinkedHashMap<>();
+                        params.put("mode", mode.getKey());
+                        params.put("threads", threads);
+                        params.put("permits", permits);
+                        params.put("size", size);
+
+                        final IterativeParallelism parallelism = mode.getValue();
+                        benchmarks.measure("map", params, ops -> {
+                            long result = 0;
+                            for (long i = 0; i < ops; i++) {
+                                result += run(() -> parallelism.map(threads, values, lookup).size());
+                            }
+                            return result;
+                        });
+                        benchmarks.measure("filter", params, ops -> {
+                            long result = 0;
+                            for (long i = 0; i < ops; i++) {
+                                result += run(() -> parallelism.filter(threads, values, check).size());
+                            }
+                            return result;
+                        });
+                    }
+                }
+
+                pool.close();
+            }
+        }
+    }
+
+    private interface Operation {
+        int run() throws InterruptedException;
+    }
+
+    private static int run(final Operation operation) {
+        try {
+            return operation.run();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package info.kgeorgiy.ja.sinitsyn.benchmarks;
+
+import info.kgeorgiy.ja.sinitsyn.concurrent.IterativeParallelism;
+import info.kgeorgiy.ja.sinitsyn.concurrent.ParallelMapperImpl;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Per-call overhead of {@link IterativeParallelism} on many small queries: new threads
+ * for every call, a shared {@link ParallelMapperImpl} and the pooled mode with inline
+ * execution of small lists.
+ *
+ * <p>Usage: {@code IterativeParallelismBenchmark [--threads 4] [--sizes 100,10000]
+ * [--inline 1000] [options]}, see {@link Benchmarks} for the rest of the options.
+ *
+ * @author AlexSin
+ */
+public final class IterativeParallelismBenchmark {
+
+    private IterativeParallelismBenchmark() {
+    }
+
+    /**
+     * Runs the benchmarks
+     *
+     * @param args options, see {@link Benchmarks}
+     */
+    public static void main(final String[] args) {
+        try (final Benchmarks benchmarks = new Benchmarks(args)) {
+            final int inline = benchmarks.ints("inline", 1000)[0];
+
+            for (final int threads : benchmarks.ints("threads", 4)) {
+                try (final ParallelMapperImpl mapper = new ParallelMapperImpl(threads);
+                     final IterativeParallelism pooled = IterativeParallelism.pooled(threads, inline)) {
+                    final Map<String, IterativeParallelism> modes = new LinkedHashMap<>();
+                    modes.put("spawn", new IterativeParallelism());
+                    modes.put("mapper", new IterativeParallelism(mapper));
+                    modes.put("pooled", pooled);
+
+                    for (final int size : benchmarks.ints("sizes", 100, 10_000, 1_000_000)) {
+                        final List<Integer> values = IntStream.range(0, size).boxed().toList();
+
+                        for (final var mode : modes.entrySet()) {
+                            final Map<String, Object> params = new LinkedHashMap<>();
+                            params.put("mode", mode.getKey());
+                            params.put("threads", threads);
+                            params.put("size", size);
+
+                            final IterativeParallelism parallelism = mode.getValue();
+                            benchmarks.measure("maximum", params, ops -> {
+                                long result = 0;
+                                for (long i = 0; i < ops; i++) {
+                                    try {
+                                        result += parallelism.maximum(threads, values, Comparator.naturalOrder());
+                                    } catch (final InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                        throw new IllegalStateException(e);
+                                    }
+                                }
+                                return result;
+                            });
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package info.kgeorgiy.ja.sinitsyn.benchmarks;
+
+import info.kgeorgiy.ja.sinitsyn.concurrent.ParallelMapperImpl;
+import info.kgeorgiy.ja.sinitsyn.concurrent.WorkStealingParallelMapper;
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Throughput of {@link ParallelMapper} implementations: time of one {@code map} call over
+ * lists of tiny and heavier tasks for different numbers of worker threads.
+ *
+ * <p>Usage: {@code ParallelMapperBenchmark [--threads 1,4,16] [--sizes 1000,1000000] [options]},
+ * see {@link Benchmarks} for the rest of the options.
+ *
+ * @author AlexSin
+ */
+public final class ParallelMapperBenchmark {
+
+    private ParallelMapperBenchmark() {
+    }
+
+    private static Map<String, IntFunction<ParallelMapper>> implementations() {
+        final Map<String, IntFunction<ParallelMapper>> implementations = new LinkedHashMap<>();
+        implementations.put("ParallelMapperImpl", ParallelMapperImpl::new);
+        implementations.put("WorkStealingParallelMapper", WorkStealingParallelMapper::new);
+
+        return implementations;
+    }
+
+    private static Map<String, Function<Integer, Integer>> workloads() {
+        final Map<String, Function<Integer, Integer>> workloads = new LinkedHashMap<>();
+        workloads.put("tiny", x -> x * 31 + 7);
+        workloads.put("medium", x -> {
+            int h = x;
+            for (int i = 0; i < 1000; i++) {
+                h = h * 31 + i;
+            }
+            return h;
+        });
+
+        return workloads;
+    }
+
+    /**
+     * Runs the benchmarks
+     *
+     * @param args options, see {@link Benchmarks}
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        try (final Benchmarks benchmarks = new Benchmarks(args)) {
+            final int cores = Runtime.getRuntime().availableProcessors();
+
+            for (final int threads : benchmarks.ints("threads", 1, 4, cores)) {
+                for (final var implementation : implementations().entrySet()) {
+                    try (final ParallelMapper mapper = implementation.getValue().apply(threads)) {
+                        for (final int size : benchmarks.ints("sizes", 1_000, 100_000, 1_000_000)) {
+                            final List<Integer> values = IntStream.range(0, size).boxed().toList();
+
+                            for (final var workload : workloads().entrySet()) {
+                                final Map<String, Object> params = new LinkedHashMap<>();
+                                params.put("implementation", implementation.getKey());
+                                params.put("threads", threads);
+                                params.put("size", size);
+                                params.put("workload", workload.getKey());
+
+                                benchmarks.measure("map", params, ops -> {
+                                    long result = 0;
+                                    for (long i = 0; i < ops; i++) {
+                                        try {
+                                            result += mapper.map(workload.getValue(), values).get(size - 1);
+                                        } catch (final InterruptedException e) {
+                                            Thread.currentThread().interrupt();
+                                            throw new IllegalStateException(e);
+                                        }
+                                    }
+                                    return result;
+                                });
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package info.kgeorgiy.ja.sinitsyn.benchmarks;
+
+import info.kgeorgiy.ja.sinitsyn.concurrent.IterativeParallelism;
+import info.kgeorgiy.ja.sinitsyn.concurrent.Partitioner;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * Memory-bandwidth-bound scans of large arrays by {@link IterativeParallelism} with
+ * different {@link Partitioner}s: summing a {@code long[]} only reads memory, mapping an
+ * {@code int[]} also writes the results, so aligned bounds matter there.
+ *
+ * <p>Usage: {@code PartitioningBenchmark [--threads 4] [--sizes 1000000,16000000]
+ * [--block 4096] [options]}, see {@link Benchmarks} for the rest of the options.
+ * Effect of interleaving depends on the number of sockets and on how the operating
+ * system places the threads.
+ *
+ * @author AlexSin
+ */
+public final class PartitioningBenchmark {
+
+    private PartitioningBenchmark() {
+    }
+
+    /**
+     * Runs the benchmarks
+     *
+     * @param args options, see {@link Benchmarks}
+     */
+    public static void main(final String[] args) {
+        try (final Benchmarks benchmarks = new Benchmarks(args)) {
+            final int block = benchmarks.ints("block", 4096)[0];
+
+            final Map<String, Partitioner> partitioners = new LinkedHashMap<>();
+            partitioners.put("contiguous", Partitioner.contiguous());
+            partitioners.put("interleaved", Partitioner.interleaved(block));
+            partitioners.put("aligned", Partitioner.aligned(16));
+
+            for (final int threads : benchmarks.ints("threads", 4)) {
+                for (final int size : benchmarks.ints("sizes", 1_000_000, 16_000_000)) {
+                    final long[] longs = LongStream.range(0, size).toArray();
+                    final int[] ints = LongStream.range(0, size).mapToInt(i -> (int) i).toArray();
+
+                    for (final var partitioner : partitioners.entrySet()) {
+                        try (final IterativeParallelism parallelism = IterativeParallelism.pooled(threads, 0)
+                                .withPartitioner(partitioner.getValue())) {
+                            final Map<String, Object> params = new LinkedHashMap<>();
+                            params.put("partitioner", partitioner.getKey());
+                            params.put("threads", threads);
+                            params.put("size", size);
+
+                            benchmarks.measure("sum", params, ops -> {
+                                long result = 0;
+                                for (long i = 0; i < ops; i++) {
+                                    result += run(() -> parallelism.sum(threads, longs));
+                                }
+                                return result;
+                            });
+                            benchmarks.measure("map", params, ops -> {
+                                long result = 0;
+                                for (long i = 0; i < ops; i++) {
+                                    result += run(() -> parallelism.map(threads, ints, x -> x * 31)[size - 1]);
+                                }
+                                return result;
+                            });
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private interface Operation {
+        long run() throws InterruptedException;
+    }
+
+    private static long run(final Operation operation) {
+        try {
+            return operation.run();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -4,9 +4,11 @@ import info.kgeorgiy.java.advanced.concurrent.ListIP;
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.function.Predicate;
+import java.util.function.*;
 import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 /**
@@ -16,9 +18,56 @@ import java.util.stream.Stream;
  *
  * @see ListIP
  */
-public class IterativeParallelism implements ListIP {
+public class IterativeParallelism implements ListIP, AutoCloseable {
+
+    /** Size of the first batch pulled from a source */
+    private static final int INITIAL_BATCH = 1024;
+    /** Maximal size of a batch pulled from a source */
+    private static final int MAX_BATCH = 1 << 20;
+    /** Processing time of a batch that batch sizes are adjusted to */
+    private static final long BATCH_NANOS = 1_000_000;
 
     private ParallelMapper parallelMapper;
+    private ParallelMapperImpl pool;
+    private int minParts = 1;
+    private int inlineThreshold = 0;
+    private Partitioner partitioner = Partitioner.contiguous();
+    /** Whether ranges of worker {@code i} go to worker {@code i} of a {@link ParallelMapperImpl} */
+    private boolean placed;
+    private final ParallelMetrics metrics = new ParallelMetrics();
+
+    /** Contiguous part of a list processed by one thread */
+    private record Part<T>(int offset, List<T> values) {}
+
+    /**
+     * Range {@code [from, to)} of indices, {@code index} is its number and {@code worker}
+     * is the number of the thread that processes it
+     */
+    private record Range(int index, int worker, int from, int to) {}
+
+    /** Element with its index in the list */
+    private record Ranked<T>(int index, T value) {}
+
+    /**
+     * Result of a search shared by all parts. Parts poll it to stop as soon as the answer
+     * is settled: any match is enough for {@code any}, {@code all} and {@code findAny}, while
+     * {@code findFirst} and {@code indexOf} only need to look before the best match so far.
+     */
+    private static final class SearchResult {
+        private static final int NONE = Integer.MAX_VALUE;
+
+        private volatile int index = NONE;
+
+        private synchronized void offer(final int index) {
+            if (index < this.index) {
+                this.index = index;
+            }
+        }
+
+        private boolean isSettled(final int index, final boolean first) {
+            return first ? this.index <= index : this.index != NONE;
+        }
+    }
 
     /**
      * Default constructor. Calling it means that for each parallel operation there will
@@ -42,6 +91,88 @@ public class IterativeParallelism implements ListIP {
         this.parallelMapper = parallelMapper;
     }
 
+    /**
+     * Creates instance for blocking predicates and functions (I/O, lookups in a local
+     * store). Every operation runs on virtual threads of a {@link VirtualThreadParallelMapper},
+     * so it is cheap to have thousands of them, and the given list is split into at least
+     * {@code permits} parts regardless of the requested number of threads. Concurrency is
+     * limited by the budget of {@code permits} shared by all operations of this instance.
+     *
+     * @param permits maximal number of parts processed at once.
+     *
+     * @return instance working on virtual threads.
+     *
+     * @see VirtualThreadParallelMapper
+     */
+    public static IterativeParallelism virtual(final int permits) {
+        final var iterativeParallelism = new IterativeParallelism(new VirtualThreadParallelMapper(permits));
+        iterativeParallelism.minParts = permits;
+
+        return iterativeParallelism;
+    }
+
+    /**
+     * Creates instance with its own pool of worker threads, so operations do not start
+     * new threads. The calling thread runs one part itself instead of waiting, and lists
+     * shorter than {@code inlineThreshold} are processed by the calling thread alone. The
+     * pool is stopped by {@link #close()}.
+     *
+     * @param threads number of worker threads in the pool.
+     * @param inlineThreshold minimal size of a list to be processed in parallel.
+     *
+     * @return instance owning the pool.
+     */
+    public static IterativeParallelism pooled(final int threads, final int inlineThreshold) {
+        final var iterativeParallelism = new IterativeParallelism();
+        iterativeParallelism.pool = new ParallelMapperImpl(threads);
+        iterativeParallelism.inlineThreshold = inlineThreshold;
+
+        return iterativeParallelism;
+    }
+
+    /**
+     * Sets strategy of splitting values among threads, {@link Partitioner#contiguous()}
+     * by default. Sorting always uses contiguous parts.
+     * <p>
+     * When operations run on a {@link ParallelMapperImpl}, either {@link #pooled(int, int) pooled}
+     * or given to the constructor, the ranges of worker {@code i} are placed on worker
+     * {@code i % threads} of the mapper rather than taken by whichever worker is free, so the
+     * worker start hook of the mapper decides which core processes them. Other instances
+     * start threads per operation, which can not be placed.
+     *
+     * @param partitioner strategy of splitting.
+     *
+     * @return this instance.
+     */
+    public IterativeParallelism withPartitioner(final Partitioner partitioner) {
+        this.partitioner = Objects.requireNonNull(partitioner);
+        this.placed = true;
+
+        return this;
+    }
+
+    /**
+     * Stops the pool of worker threads created by {@link #pooled(int, int)}. Does nothing
+     * for other instances, a {@link ParallelMapper} given to the constructor is closed by
+     * its owner.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Returns metrics of this instance. Every call is split into ranges, and the ranges of one
+     * thread are one task: its wait is the time from the call to the start of the thread
+     *
+     * @return metrics of all calls
+     */
+    public ParallelMetrics metrics() {
+        return metrics;
+    }
+
     /**
      * Searches for the maximum value in the list. Searching will be done in separated
      * threads. Number of threads is specified by value "{@code threads}". If there is
@@ -100,7 +231,7 @@ public class IterativeParallelism implements ListIP {
      */
     @Override
     public <T> boolean all(final int threads, final List<? extends T> values, final Predicate<? super T> predicate) throws InterruptedException {
-        return threading(threads, values, vls -> vls.allMatch(predicate)).stream().allMatch(b -> b);
+        return search(threads, values, predicate.negate(), false) < 0;
     }
 
     /**
@@ -120,7 +251,89 @@ public class IterativeParallelism implements ListIP {
      */
     @Override
     public <T> boolean any(final int threads, final List<? extends T> values, final Predicate<? super T> predicate) throws InterruptedException {
-        return !all(threads, values, predicate.negate());
+        return search(threads, values, predicate, false) >= 0;
+    }
+
+    /**
+     * Searches for the first element that satisfies the given predicate. All operations
+     * will be done in separated threads. Number of threads is specified by value
+     * "{@code threads}". Threads stop as soon as a match is found before their position.
+     *
+     * @param threads number or concurrent threads.
+     * @param values values to search in.
+     * @param predicate test predicate.
+     * @param <T> value type.
+     *
+     * @return index of the first value satisfying predicate or {@code -1}, if there is no such value
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> int indexOf(final int threads, final List<? extends T> values, final Predicate<? super T> predicate) throws InterruptedException {
+        return search(threads, values, predicate, true);
+    }
+
+    /**
+     * Searches for the first element that satisfies the given predicate.
+     *
+     * @param threads number or concurrent threads.
+     * @param values values to search in.
+     * @param predicate test predicate.
+     * @param <T> value type.
+     *
+     * @return the first value satisfying predicate or empty optional, if there is no such value.
+     * {@code null} values are not supported
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     *
+     * @see #indexOf(int, List, Predicate)
+     */
+    public <T> Optional<T> findFirst(final int threads, final List<? extends T> values, final Predicate<? super T> predicate) throws InterruptedException {
+        final int index = search(threads, values, predicate, true);
+
+        return index < 0 ? Optional.empty() : Optional.of(values.get(index));
+    }
+
+    /**
+     * Searches for any element that satisfies the given predicate. All threads stop as
+     * soon as one of them finds a match, so it is usually faster than
+     * {@link #findFirst(int, List, Predicate)}.
+     *
+     * @param threads number or concurrent threads.
+     * @param values values to search in.
+     * @param predicate test predicate.
+     * @param <T> value type.
+     *
+     * @return some value satisfying predicate or empty optional, if there is no such value.
+     * {@code null} values are not supported
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> Optional<T> findAny(final int threads, final List<? extends T> values, final Predicate<? super T> predicate) throws InterruptedException {
+        final int index = search(threads, values, predicate, false);
+
+        return index < 0 ? Optional.empty() : Optional.of(values.get(index));
+    }
+
+    private <T> int search(final int threads, final List<? extends T> values,
+                           final Predicate<? super T> predicate, final boolean first) throws InterruptedException {
+        final var result = new SearchResult();
+
+        parts(threads, values, part -> {
+            int index = part.offset();
+            for (final T value : part.values()) {
+                if (result.isSettled(index, first)) {
+                    break;
+                }
+                if (predicate.test(value)) {
+                    result.offer(index);
+                    break;
+                }
+                index++;
+            }
+            return null;
+        });
+
+        return result.index == SearchResult.NONE ? -1 : result.index;
     }
 
     /**
@@ -148,17 +361,76 @@ public class IterativeParallelism implements ListIP {
      * separated threads. Number of threads is specified by value "{@code threads}".
      * If there is no elements in the given list then returns {@code empty list}.
      *
+     * <p>Works in two passes. First every thread marks matching elements of its part
+     * in a bitmap and counts them, prefix sums of the counts give the position of every
+     * part in the result. Then every thread copies its marked elements straight to their
+     * positions in one array, so the predicate is called once per element and survivors
+     * are copied once.
+     *
      * @param threads number of concurrent threads.
      * @param values values to filter.
      * @param predicate filter predicate.
      *
-     * @return list of values satisfying given predicated. Order of values is preserved.
+     * @return unmodifiable list over the array of values satisfying given predicated.
+     * Order of values is preserved.
      *
      * @throws InterruptedException if executing thread was interrupted.
      */
     @Override
     public <T> List<T> filter(final int threads, final List<? extends T> values, final Predicate<? super T> predicate) throws InterruptedException {
-        return applyToAll(threads, values, predicate, e -> e);
+        final List<Range> runs = split(threads, values.size());
+        final int parts = runs.size();
+        final long[][] marks = new long[parts][];
+        final int[] offsets = new int[parts + 1];
+
+        run(runs, range -> {
+            final long[] bits = new long[(range.to() - range.from() + Long.SIZE - 1) / Long.SIZE];
+            int i = 0;
+            int count = 0;
+            for (final T value : values.subList(range.from(), range.to())) {
+                if (predicate.test(value)) {
+                    bits[i / Long.SIZE] |= 1L << i;
+                    count++;
+                }
+                i++;
+            }
+
+            marks[range.index()] = bits;
+            offsets[range.index() + 1] = count;
+            return null;
+        });
+
+        for (int i = 0; i < parts; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        if (offsets[parts] == 0) {
+            return List.of();
+        }
+
+        final Object[] result = new Object[offsets[parts]];
+        run(runs, range -> {
+            final long[] bits = marks[range.index()];
+            int position = offsets[range.index()];
+
+            if (values instanceof RandomAccess) {
+                for (int word = 0; word < bits.length; word++) {
+                    for (long rest = bits[word]; rest != 0; rest &= rest - 1) {
+                        result[position++] = values.get(range.from() + word * Long.SIZE + Long.numberOfTrailingZeros(rest));
+                    }
+                }
+            } else {
+                int i = 0;
+                for (final T value : values.subList(range.from(), range.to())) {
+                    if ((bits[i / Long.SIZE] & 1L << i) != 0) {
+                        result[position++] = value;
+                    }
+                    i++;
+                }
+            }
+            return null;
+        });
+
+        return view(result);
     }
 
     /**
@@ -171,73 +443,1038 @@ public class IterativeParallelism implements ListIP {
      * @param values values to map.
      * @param f mapper function.
      *
-     * @return list of values mapped by given function.
+     * @return unmodifiable list over the array of values mapped by given function, every
+     * thread writes its part straight into the array.
      *
      * @throws InterruptedException if executing thread was interrupted.
      */
     @Override
     public <T, U> List<U> map(final int threads, final List<? extends T> values, final Function<? super T, ? extends U> f) throws InterruptedException {
-        return applyToAll(threads, values, e -> true, f);
+        final Object[] result = new Object[values.size()];
+        parts(threads, values, part -> {
+            int i = part.offset();
+            for (final T value : part.values()) {
+                result[i++] = f.apply(value);
+            }
+            return null;
+        });
+
+        return view(result);
     }
 
-    private <T, U> List<U> applyToAll(final int threads, final List<? extends T> values,
-                                      final Predicate<? super T> predicate,
-                                      final Function<? super T, ? extends U> fun) throws InterruptedException {
-        return threading(threads, values, vls -> vls.filter(predicate).map(fun).toList()).stream()
-                .<U>flatMap(Collection::stream).toList();
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> view(final Object[] array) {
+        return Collections.unmodifiableList((List<T>) Arrays.asList(array));
     }
 
-    private <T, R> List<R> threading(final int threads, final List<T> values, final Function<Stream<T>, R> fun) throws InterruptedException {
-        assert threads > 0;
+    /**
+     * Reduces all elements with the given monoid. Every thread reduces its part of the
+     * list, then the partial results are combined in order. All operations will be done
+     * in separated threads. Number of threads is specified by value "{@code threads}".
+     * If there is no elements in the given list then returns identity of the monoid.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to reduce.
+     * @param monoid associative operation with identity.
+     * @param <T> value type.
+     *
+     * @return values reduced by the monoid.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> T reduce(final int threads, final List<? extends T> values, final Monoid<T> monoid) throws InterruptedException {
+        return mapReduce(threads, values, Function.identity(), monoid);
+    }
+
+    /**
+     * Maps all elements by the given function and reduces results with the given monoid.
+     * Mapped values are reduced as soon as they are computed, so no intermediate list is
+     * created. All operations will be done in separated threads. Number of threads is
+     * specified by value "{@code threads}". If there is no elements in the given list then
+     * returns identity of the monoid.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to reduce.
+     * @param lift mapper function.
+     * @param monoid associative operation with identity.
+     * @param <T> value type.
+     * @param <R> result type.
+     *
+     * @return mapped values reduced by the monoid.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T, R> R mapReduce(final int threads, final List<? extends T> values,
+                              final Function<? super T, ? extends R> lift, final Monoid<R> monoid) throws InterruptedException {
+        return parts(threads, values, part -> {
+            R result = monoid.identity();
+            for (final T value : part.values()) {
+                result = monoid.apply(result, lift.apply(value));
+            }
+            return result;
+        }).stream().reduce(monoid.identity(), monoid.operator());
+    }
+
+    /**
+     * Sums values of the given function over all elements. Every thread sums its part as
+     * a primitive, without boxing. If there is no elements in the given list then returns
+     * {@code 0}.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to sum.
+     * @param f function to sum values of.
+     * @param <T> value type.
+     *
+     * @return sum of function values, overflows silently.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> long sumLong(final int threads, final List<? extends T> values, final ToLongFunction<? super T> f) throws InterruptedException {
+        return parts(threads, values, part -> {
+            long sum = 0;
+            for (final T value : part.values()) {
+                sum += f.applyAsLong(value);
+            }
+            return sum;
+        }).stream().mapToLong(Long::longValue).sum();
+    }
 
-        final var thr = Math.min(threads, values.size());
+    /**
+     * Sums values of the given function over all elements. Every thread sums its part
+     * with compensated summation, as {@link java.util.stream.DoubleStream#sum()} does.
+     * If there is no elements in the given list then returns {@code 0}.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to sum.
+     * @param f function to sum values of.
+     * @param <T> value type.
+     *
+     * @return sum of function values.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> double sumDouble(final int threads, final List<? extends T> values, final ToDoubleFunction<? super T> f) throws InterruptedException {
+        return threading(threads, values, vls -> vls.mapToDouble(f).sum()).stream()
+                .mapToDouble(Double::doubleValue).sum();
+    }
 
-        final var sizeByThread = values.size() / thr;
-        var left = values.size() % thr;
+    /**
+     * Counts elements that satisfy the given predicate. If there is no elements in the
+     * given list then returns {@code 0}.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to test.
+     * @param predicate test predicate.
+     * @param <T> value type.
+     *
+     * @return number of values satisfying predicate.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> int count(final int threads, final List<? extends T> values, final Predicate<? super T> predicate) throws InterruptedException {
+        return (int) sumLong(threads, values, value -> predicate.test(value) ? 1 : 0);
+    }
 
-        var index = 0;
+    /**
+     * Sorts the list. Every thread sorts its part, then the output is split into as many
+     * parts by splitters sampled from the sorted parts, and every thread merges its range
+     * of keys from all sorted parts straight into the result. The sort is stable. All
+     * operations will be done in separated threads. Number of threads is specified by
+     * value "{@code threads}". If there is no elements in the given list then returns
+     * {@code empty list}.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to sort.
+     * @param comparator value comparator.
+     * @param <T> value type.
+     *
+     * @return unmodifiable list of sorted values.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> sorted(final int threads, final List<? extends T> values, final Comparator<? super T> comparator) throws InterruptedException {
+        final Object[] array = values.toArray();
+        final Comparator<Object> order = (Comparator<Object>) comparator;
 
-        final List<Stream<T>> listOfParts = new ArrayList<>();
-        for (int i = 0; i < thr; i++) {
-            final var start = index;
-            final int size = sizeByThread + (left-- > 0 ? 1 : 0);
-            index += size;
+        final List<Range> runs = split(threads, array.length, Partitioner.contiguous());
+        run(runs, range -> {
+            Arrays.sort(array, range.from(), range.to(), order);
+            return null;
+        });
+        if (runs.size() <= 1) {
+            return view(array);
+        }
 
-            listOfParts.add(values.subList(start, start + size).stream());
+        // runs.size() - 1 splitters from equally spaced samples of every run
+        final int k = runs.size();
+        final List<Object> samples = new ArrayList<>();
+        for (final Range run : runs) {
+            for (int i = 1; i <= k; i++) {
+                samples.add(array[run.from() + (int) ((long) (run.to() - run.from()) * i / (k + 1))]);
+            }
+        }
+        samples.sort(order);
+        final Object[] splitters = new Object[k - 1];
+        for (int i = 0; i < k - 1; i++) {
+            splitters[i] = samples.get((i + 1) * k);
         }
 
-        if (parallelMapper != null) {
-            return parallelMapper.map(fun, listOfParts);
+        // bounds[j][i] is the first index of the run i that goes to the output part j
+        final int[][] bounds = new int[k + 1][k];
+        for (int i = 0; i < k; i++) {
+            bounds[0][i] = runs.get(i).from();
+            bounds[k][i] = runs.get(i).to();
+        }
+        for (int j = 0; j < k - 1; j++) {
+            for (int i = 0; i < k; i++) {
+                bounds[j + 1][i] = lowerBound(array, runs.get(i).from(), runs.get(i).to(), splitters[j], order);
+            }
         }
 
-        final List<R> res = new ArrayList<>(Collections.nCopies(thr, null));
-        final List<Thread> listOfThreads = new ArrayList<>();
+        final Object[] result = new Object[array.length];
+        final List<Range> outputs = new ArrayList<>();
+        int offset = 0;
+        for (int j = 0; j < k; j++) {
+            final int start = offset;
+            for (int i = 0; i < k; i++) {
+                offset += bounds[j + 1][i] - bounds[j][i];
+            }
+            outputs.add(new Range(j, j, start, offset));
+        }
 
-        for (int i = 0; i < thr; i++) {
-            final var ind = i;
-            final var thread = new Thread(() -> res.set(ind, fun.apply(listOfParts.get(ind))));
+        run(outputs, output -> {
+            merge(array, bounds[output.index()], bounds[output.index() + 1], result, output.from(), order);
+            return null;
+        });
 
-            thread.start();
+        return view(result);
+    }
 
-            listOfThreads.add(thread);
+    private static int lowerBound(final Object[] array, int lo, int hi, final Object key, final Comparator<Object> order) {
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (order.compare(array[mid], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
         }
 
-        final var failed = new InterruptedException();
-        for (final Thread thread : listOfThreads) {
-            assert thread != null;
+        return lo;
+    }
 
-            try {
-                thread.join();
-            } catch (final InterruptedException e) {
-                failed.addSuppressed(e);
+    /** Merges runs {@code [from[i], to[i])}, taking equal elements from the earlier run first */
+    private static void merge(final Object[] array, final int[] from, final int[] to,
+                              final Object[] result, int position, final Comparator<Object> order) {
+        final int[] heads = from.clone();
+        final PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> {
+            final int cmp = order.compare(array[heads[a]], array[heads[b]]);
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+        for (int i = 0; i < heads.length; i++) {
+            if (heads[i] < to[i]) {
+                queue.add(i);
             }
         }
 
-        if (failed.getSuppressed().length != 0) {
-            throw failed;
+        while (!queue.isEmpty()) {
+            final int run = queue.poll();
+            result[position++] = array[heads[run]++];
+            if (heads[run] < to[run]) {
+                queue.add(run);
+            }
         }
+    }
 
-        return res;
+    /**
+     * Selects {@code k} greatest elements. Every thread keeps {@code k} greatest elements
+     * of its part in a bounded heap, then the candidates are merged. All operations will
+     * be done in separated threads. Number of threads is specified by value "{@code threads}".
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to select from.
+     * @param k number of elements to select.
+     * @param comparator value comparator.
+     * @param <T> value type.
+     *
+     * @return list of {@code min(k, values.size())} greatest values in descending order,
+     * of equal values the earlier in the given list go first.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     * @throws IllegalArgumentException if {@code k} is negative.
+     */
+    public <T> List<T> topK(final int threads, final List<? extends T> values, final int k, final Comparator<? super T> comparator) throws InterruptedException {
+        if (k < 0) {
+            throw new IllegalArgumentException("k should be non-negative: " + k);
+        }
+        if (k == 0) {
+            return List.of();
+        }
+
+        // the worst candidate is the least one, of equal ones the latest
+        final Comparator<Ranked<T>> worst = Comparator.<Ranked<T>, T>comparing(Ranked::value, comparator)
+                .thenComparing(Ranked::index, Comparator.reverseOrder());
+
+        final List<PriorityQueue<Ranked<T>>> heaps = parts(threads, values, part -> {
+            final PriorityQueue<Ranked<T>> heap = new PriorityQueue<>(worst);
+            int index = part.offset();
+            for (final T value : part.values()) {
+                final Ranked<T> candidate = new Ranked<>(index++, value);
+                if (heap.size() < k) {
+                    heap.add(candidate);
+                } else if (worst.compare(candidate, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.add(candidate);
+                }
+            }
+            return heap;
+        });
+
+        return heaps.stream()
+                .flatMap(Collection::stream)
+                .sorted(worst.reversed())
+                .limit(k)
+                .map(Ranked::value)
+                .toList();
+    }
+
+    /**
+     * Filters values of the source that satisfy the given predicate and passes them to the
+     * sink in order of the source. The source is not copied into a list: the calling thread
+     * pulls it in batches, every batch is filtered as {@link #filter(int, List, Predicate)}
+     * does, and its results go to the sink before the next batch is pulled. Batch sizes adapt
+     * to the processing time of previous batches, so unbounded sources are processed too.
+     *
+     * @param threads number or concurrent threads.
+     * @param source values to filter.
+     * @param predicate filter predicate.
+     * @param sink receiver of values satisfying the predicate, called by the calling thread.
+     * @param <T> value type.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> void filter(final int threads, final Spliterator<? extends T> source,
+                           final Predicate<? super T> predicate, final Consumer<? super T> sink) throws InterruptedException {
+        batches(threads, source, batch -> {
+            filter(threads, batch, predicate).forEach(sink);
+            return true;
+        });
+    }
+
+    /**
+     * Filters values of the iterator, see {@link #filter(int, Spliterator, Predicate, Consumer)}.
+     *
+     * @param threads number or concurrent threads.
+     * @param source values to filter.
+     * @param predicate filter predicate.
+     * @param sink receiver of values satisfying the predicate, called by the calling thread.
+     * @param <T> value type.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> void filter(final int threads, final Iterator<? extends T> source,
+                           final Predicate<? super T> predicate, final Consumer<? super T> sink) throws InterruptedException {
+        filter(threads, Spliterators.spliteratorUnknownSize(source, Spliterator.ORDERED), predicate, sink);
+    }
+
+    /**
+     * Maps values of the source by the given function and passes results to the sink in
+     * order of the source. The source is pulled in batches, as by
+     * {@link #filter(int, Spliterator, Predicate, Consumer)}, and every batch is mapped as
+     * {@link #map(int, List, Function)} does.
+     *
+     * @param threads number or concurrent threads.
+     * @param source values to map.
+     * @param f mapper function.
+     * @param sink receiver of mapped values, called by the calling thread.
+     * @param <T> value type.
+     * @param <U> mapped value type.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T, U> void map(final int threads, final Spliterator<? extends T> source,
+                           final Function<? super T, ? extends U> f, final Consumer<? super U> sink) throws InterruptedException {
+        batches(threads, source, batch -> {
+            map(threads, batch, f).forEach(sink);
+            return true;
+        });
+    }
+
+    /**
+     * Maps values of the iterator, see {@link #map(int, Spliterator, Function, Consumer)}.
+     *
+     * @param threads number or concurrent threads.
+     * @param source values to map.
+     * @param f mapper function.
+     * @param sink receiver of mapped values, called by the calling thread.
+     * @param <T> value type.
+     * @param <U> mapped value type.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T, U> void map(final int threads, final Iterator<? extends T> source,
+                           final Function<? super T, ? extends U> f, final Consumer<? super U> sink) throws InterruptedException {
+        map(threads, Spliterators.spliteratorUnknownSize(source, Spliterator.ORDERED), f, sink);
+    }
+
+    /**
+     * Checks if any value of the source satisfies the given predicate. The source is pulled
+     * in batches, as by {@link #filter(int, Spliterator, Predicate, Consumer)}, and pulling
+     * stops at the first batch with such a value, so an unbounded source is processed up to it.
+     *
+     * @param threads number or concurrent threads.
+     * @param source values to test.
+     * @param predicate test predicate.
+     * @param <T> value type.
+     *
+     * @return whether any value satisfies predicate or {@code false}, if the source is empty
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> boolean any(final int threads, final Spliterator<? extends T> source,
+                           final Predicate<? super T> predicate) throws InterruptedException {
+        final boolean[] found = new boolean[1];
+        batches(threads, source, batch -> !(found[0] = any(threads, batch, predicate)));
+
+        return found[0];
+    }
+
+    /**
+     * Checks if any value of the iterator satisfies the given predicate,
+     * see {@link #any(int, Spliterator, Predicate)}.
+     *
+     * @param threads number or concurrent threads.
+     * @param source values to test.
+     * @param predicate test predicate.
+     * @param <T> value type.
+     *
+     * @return whether any value satisfies predicate or {@code false}, if the source is empty
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> boolean any(final int threads, final Iterator<? extends T> source,
+                           final Predicate<? super T> predicate) throws InterruptedException {
+        return any(threads, Spliterators.spliteratorUnknownSize(source, Spliterator.ORDERED), predicate);
+    }
+
+    /** Processing of one batch, returns whether the next one is needed */
+    private interface Batch<T> {
+        boolean process(List<T> batch) throws InterruptedException;
+    }
+
+    /**
+     * Pulls the source in batches and processes them one by one. A batch is doubled while it
+     * is processed in less than half of {@value #BATCH_NANOS} nanoseconds and halved while it
+     * takes more than twice as long, but it is never smaller than the number of threads.
+     */
+    private <T> void batches(final int threads, final Spliterator<? extends T> source,
+                             final Batch<T> action) throws InterruptedException {
+        final int minBatch = Math.max(threads, 1);
+        int size = Math.max(INITIAL_BATCH, minBatch);
+
+        final List<T> batch = new ArrayList<>();
+        boolean more = true;
+        while (more) {
+            batch.clear();
+            while (batch.size() < size && (more = source.tryAdvance(batch::add))) {
+                // pulled one more value
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            final long start = System.nanoTime();
+            if (!action.process(batch)) {
+                return;
+            }
+            final long elapsed = System.nanoTime() - start;
+
+            if (elapsed < BATCH_NANOS / 2) {
+                size = Math.min(size * 2, MAX_BATCH);
+            } else if (elapsed > BATCH_NANOS * 2) {
+                size = Math.max(size / 2, minBatch);
+            }
+        }
+    }
+
+    /** Processing of range {@code [from, to)} of a primitive array, {@code index} is the number of the range */
+    private interface RangeKernel<A> {
+        void apply(A partial, int index, int from, int to);
+    }
+
+    /** Copy of element {@code index} of a primitive array to {@code position} of the result */
+    private interface Copier<A> {
+        void copy(A result, int position, int index);
+    }
+
+    /**
+     * Splits array of the given length and applies the kernel to every range. Partial
+     * results are written to the array created for the number of the ranges
+     */
+    private <A> A partials(final int threads, final int length, final IntFunction<A> array,
+                           final RangeKernel<A> kernel) throws InterruptedException {
+        final List<Range> runs = split(threads, length);
+        final A partial = array.apply(runs.size());
+        run(runs, range -> {
+            kernel.apply(partial, range.index(), range.from(), range.to());
+            return null;
+        });
+
+        return partial;
+    }
+
+    /**
+     * Filters array of the given length by indices of the elements. Every range marks and counts
+     * its matches, offsets of the ranges are prefix sums of the counts, then every range copies
+     * its matches to its offset of the result
+     */
+    private <A> A filter(final int threads, final int length, final IntPredicate matches,
+                         final IntFunction<A> array, final Copier<A> copier) throws InterruptedException {
+        final List<Range> runs = split(threads, length);
+        final int parts = runs.size();
+        final long[][] marks = new long[parts][];
+        final int[] offsets = new int[parts + 1];
+
+        run(runs, range -> {
+            final long[] bits = new long[(range.to() - range.from() + Long.SIZE - 1) / Long.SIZE];
+            int count = 0;
+            for (int i = 0; i < range.to() - range.from(); i++) {
+                if (matches.test(range.from() + i)) {
+                    bits[i / Long.SIZE] |= 1L << i;
+                    count++;
+                }
+            }
+
+            marks[range.index()] = bits;
+            offsets[range.index() + 1] = count;
+            return null;
+        });
+
+        for (int i = 0; i < parts; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        final A result = array.apply(offsets[parts]);
+        if (offsets[parts] == 0) {
+            return result;
+        }
+
+        run(runs, range -> {
+            final long[] bits = marks[range.index()];
+            int position = offsets[range.index()];
+            for (int word = 0; word < bits.length; word++) {
+                for (long rest = bits[word]; rest != 0; rest &= rest - 1) {
+                    copier.copy(result, position++, range.from() + word * Long.SIZE + Long.numberOfTrailingZeros(rest));
+                }
+            }
+            return null;
+        });
+
+        return result;
+    }
+
+    /**
+     * Searches for the maximum value in the array. Every thread scans its range of the
+     * array in a plain loop, without boxing. If there is no elements in the given array
+     * then throws {@link NoSuchElementException}.
+     *
+     * @param threads number or concurrent threads.
+     * @param values values to get maximum of.
+     *
+     * @return maximum of given values
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     * @throws NoSuchElementException if no values are given.
+     */
+    public int maximum(final int threads, final int[] values) throws InterruptedException {
+        return extremum(threads, values, true);
+    }
+
+    /**
+     * Searches for the minimum value in the array.
+     *
+     * @param threads number or concurrent threads.
+     * @param values values to get minimum of.
+     *
+     * @return minimum of given values
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     * @throws NoSuchElementException if no values are given.
+     *
+     * @see #maximum(int, int[])
+     */
+    public int minimum(final int threads, final int[] values) throws InterruptedException {
+        return extremum(threads, values, false);
+    }
+
+    private int extremum(final int threads, final int[] values, final boolean max) throws InterruptedException {
+        if (values.length == 0) {
+            throw new NoSuchElementException("Array is empty");
+        }
+
+        final int[] partial = partials(threads, values.length, int[]::new, (result, index, from, to) -> {
+            int value = values[from];
+            for (int i = from + 1; i < to; i++) {
+                value = max ? Math.max(value, values[i]) : Math.min(value, values[i]);
+            }
+            result[index] = value;
+        });
+
+        final IntStream stream = Arrays.stream(partial);
+        return (max ? stream.max() : stream.min()).orElseThrow();
+    }
+
+    /**
+     * Sums all the elements of the array. Every thread sums its range of the array in a
+     * plain loop, without boxing. If there is no elements in the given array then returns
+     * {@code 0}.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to sum.
+     *
+     * @return sum of given values
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public long sum(final int threads, final int[] values) throws InterruptedException {
+        final long[] partial = partials(threads, values.length, long[]::new, (result, index, from, to) -> {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += values[i];
+            }
+            result[index] = sum;
+        });
+
+        return Arrays.stream(partial).sum();
+    }
+
+    /**
+     * Selects elements of the array that satisfy the given predicate. Every thread marks
+     * and counts matches of its range, then writes them at the offset of the range in the
+     * result, as {@link #filter(int, List, Predicate)} does. If there is no elements in the
+     * given array then returns an empty array.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to filter.
+     * @param predicate filter predicate.
+     *
+     * @return array of values satisfying given predicate. Order of values is preserved.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public int[] filter(final int threads, final int[] values, final IntPredicate predicate) throws InterruptedException {
+        return filter(threads, values.length, i -> predicate.test(values[i]), int[]::new,
+                (result, position, index) -> result[position] = values[index]);
+    }
+
+    /**
+     * Maps all the elements of the array by the given function. Every thread writes its
+     * range straight into the result array. If there is no elements in the given array
+     * then returns an empty array.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to map.
+     * @param f mapper function.
+     *
+     * @return array of values mapped by given function.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public int[] map(final int threads, final int[] values, final IntUnaryOperator f) throws InterruptedException {
+        final int[] result = new int[values.length];
+        ranges(threads, values.length, range -> {
+            for (int i = range.from(); i < range.to(); i++) {
+                result[i] = f.applyAsInt(values[i]);
+            }
+            return null;
+        });
+
+        return result;
+    }
+
+    /**
+     * Searches for the maximum value in the array. Every thread scans its range of the
+     * array in a plain loop, without boxing. If there is no elements in the given array
+     * then throws {@link NoSuchElementException}.
+     *
+     * @param threads number or concurrent threads.
+     * @param values values to get maximum of.
+     *
+     * @return maximum of given values
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     * @throws NoSuchElementException if no values are given.
+     */
+    public long maximum(final int threads, final long[] values) throws InterruptedException {
+        return extremum(threads, values, true);
+    }
+
+    /**
+     * Searches for the minimum value in the array.
+     *
+     * @param threads number or concurrent threads.
+     * @param values values to get minimum of.
+     *
+     * @return minimum of given values
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     * @throws NoSuchElementException if no values are given.
+     *
+     * @see #maximum(int, long[])
+     */
+    public long minimum(final int threads, final long[] values) throws InterruptedException {
+        return extremum(threads, values, false);
+    }
+
+    private long extremum(final int threads, final long[] values, final boolean max) throws InterruptedException {
+        if (values.length == 0) {
+            throw new NoSuchElementException("Array is empty");
+        }
+
+        final long[] partial = partials(threads, values.length, long[]::new, (result, index, from, to) -> {
+            long value = values[from];
+            for (int i = from + 1; i < to; i++) {
+                value = max ? Math.max(value, values[i]) : Math.min(value, values[i]);
+            }
+            result[index] = value;
+        });
+
+        final LongStream stream = Arrays.stream(partial);
+        return (max ? stream.max() : stream.min()).orElseThrow();
+    }
+
+    /**
+     * Sums all the elements of the array. Every thread sums its range of the array in a
+     * plain loop, without boxing. If there is no elements in the given array then returns
+     * {@code 0}.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to sum.
+     *
+     * @return sum of given values, overflows silently
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public long sum(final int threads, final long[] values) throws InterruptedException {
+        final long[] partial = partials(threads, values.length, long[]::new, (result, index, from, to) -> {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += values[i];
+            }
+            result[index] = sum;
+        });
+
+        return Arrays.stream(partial).sum();
+    }
+
+    /**
+     * Selects elements of the array that satisfy the given predicate. Every thread marks
+     * and counts matches of its range, then writes them at the offset of the range in the
+     * result, as {@link #filter(int, List, Predicate)} does. If there is no elements in the
+     * given array then returns an empty array.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to filter.
+     * @param predicate filter predicate.
+     *
+     * @return array of values satisfying given predicate. Order of values is preserved.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public long[] filter(final int threads, final long[] values, final LongPredicate predicate) throws InterruptedException {
+        return filter(threads, values.length, i -> predicate.test(values[i]), long[]::new,
+                (result, position, index) -> result[position] = values[index]);
+    }
+
+    /**
+     * Maps all the elements of the array by the given function. Every thread writes its
+     * range straight into the result array. If there is no elements in the given array
+     * then returns an empty array.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to map.
+     * @param f mapper function.
+     *
+     * @return array of values mapped by given function.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public long[] map(final int threads, final long[] values, final LongUnaryOperator f) throws InterruptedException {
+        final long[] result = new long[values.length];
+        ranges(threads, values.length, range -> {
+            for (int i = range.from(); i < range.to(); i++) {
+                result[i] = f.applyAsLong(values[i]);
+            }
+            return null;
+        });
+
+        return result;
+    }
+
+    /**
+     * Searches for the maximum value in the array. Every thread scans its range of the
+     * array in a plain loop, without boxing. If there is no elements in the given array
+     * then throws {@link NoSuchElementException}.
+     *
+     * @param threads number or concurrent threads.
+     * @param values values to get maximum of.
+     *
+     * @return maximum of given values, {@code NaN} if any value is {@code NaN}
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     * @throws NoSuchElementException if no values are given.
+     */
+    public double maximum(final int threads, final double[] values) throws InterruptedException {
+        return extremum(threads, values, true);
+    }
+
+    /**
+     * Searches for the minimum value in the array.
+     *
+     * @param threads number or concurrent threads.
+     * @param values values to get minimum of.
+     *
+     * @return minimum of given values, {@code NaN} if any value is {@code NaN}
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     * @throws NoSuchElementException if no values are given.
+     *
+     * @see #maximum(int, double[])
+     */
+    public double minimum(final int threads, final double[] values) throws InterruptedException {
+        return extremum(threads, values, false);
+    }
+
+    private double extremum(final int threads, final double[] values, final boolean max) throws InterruptedException {
+        if (values.length == 0) {
+            throw new NoSuchElementException("Array is empty");
+        }
+
+        final double[] partial = partials(threads, values.length, double[]::new, (result, index, from, to) -> {
+            double value = values[from];
+            for (int i = from + 1; i < to; i++) {
+                value = max ? Math.max(value, values[i]) : Math.min(value, values[i]);
+            }
+            result[index] = value;
+        });
+
+        final DoubleStream stream = Arrays.stream(partial);
+        return (max ? stream.max() : stream.min()).orElseThrow();
+    }
+
+    /**
+     * Sums all the elements of the array. Every thread sums its range of the array in a
+     * plain loop, without boxing. If there is no elements in the given array then returns
+     * {@code 0}.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to sum.
+     *
+     * @return sum of given values in order of indices, without compensation
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public double sum(final int threads, final double[] values) throws InterruptedException {
+        final double[] partial = partials(threads, values.length, double[]::new, (result, index, from, to) -> {
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += values[i];
+            }
+            result[index] = sum;
+        });
+
+        return Arrays.stream(partial).reduce(0, Double::sum);
+    }
+
+    /**
+     * Selects elements of the array that satisfy the given predicate. Every thread marks
+     * and counts matches of its range, then writes them at the offset of the range in the
+     * result, as {@link #filter(int, List, Predicate)} does. If there is no elements in the
+     * given array then returns an empty array.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to filter.
+     * @param predicate filter predicate.
+     *
+     * @return array of values satisfying given predicate. Order of values is preserved.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public double[] filter(final int threads, final double[] values, final DoublePredicate predicate) throws InterruptedException {
+        return filter(threads, values.length, i -> predicate.test(values[i]), double[]::new,
+                (result, position, index) -> result[position] = values[index]);
+    }
+
+    /**
+     * Maps all the elements of the array by the given function. Every thread writes its
+     * range straight into the result array. If there is no elements in the given array
+     * then returns an empty array.
+     *
+     * @param threads number of concurrent threads.
+     * @param values values to map.
+     * @param f mapper function.
+     *
+     * @return array of values mapped by given function.
+     *
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public double[] map(final int threads, final double[] values, final DoubleUnaryOperator f) throws InterruptedException {
+        final double[] result = new double[values.length];
+        ranges(threads, values.length, range -> {
+            for (int i = range.from(); i < range.to(); i++) {
+                result[i] = f.applyAsDouble(values[i]);
+            }
+            return null;
+        });
+
+        return result;
+    }
+
+    private <T, R> List<R> threading(final int threads, final List<T> values, final Function<Stream<T>, R> fun) throws InterruptedException {
+        return parts(threads, values, part -> fun.apply(part.values().stream()));
+    }
+
+    private <T, R> List<R> parts(final int threads, final List<T> values, final Function<Part<T>, R> fun) throws InterruptedException {
+        return ranges(threads, values.size(), range ->
+                fun.apply(new Part<>(range.from(), values.subList(range.from(), range.to()))));
+    }
+
+    private int workersCount(final int threads, final int size) {
+        assert threads > 0;
+
+        return size < inlineThreshold ? Math.min(1, size) : Math.min(Math.max(threads, minParts), size);
+    }
+
+    private <R> List<R> ranges(final int threads, final int size, final Function<Range, R> fun) throws InterruptedException {
+        return run(split(threads, size), fun);
+    }
+
+    private List<Range> split(final int threads, final int size) {
+        return split(threads, size, partitioner);
+    }
+
+    private List<Range> split(final int threads, final int size, final Partitioner partitioner) {
+        final var thr = workersCount(threads, size);
+        if (thr == 0) {
+            return List.of();
+        }
+
+        final int[] bounds = partitioner.split(thr, size);
+        if (bounds.length < 2 || bounds[0] != 0 || bounds[bounds.length - 1] != size) {
+            throw new IllegalStateException("Partitioner should split [0, " + size + "): " + Arrays.toString(bounds));
+        }
+
+        final List<Range> listOfParts = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            if (bounds[i] > bounds[i + 1]) {
+                throw new IllegalStateException("Bounds of partitioner should not decrease: " + Arrays.toString(bounds));
+            }
+            if (bounds[i] < bounds[i + 1]) {
+                listOfParts.add(new Range(listOfParts.size(), i % thr, bounds[i], bounds[i + 1]));
+            }
+        }
+
+        return listOfParts;
+    }
+
+    private <R> List<R> run(final List<Range> listOfParts, final Function<Range, R> fun) throws InterruptedException {
+        final var thr = listOfParts.size();
+        if (thr == 0) {
+            return List.of();
+        }
+
+        final long start = System.nanoTime();
+        try {
+            final int workers = listOfParts.stream().mapToInt(Range::worker).max().orElseThrow() + 1;
+            if (workers == thr && !placed) {
+                return run(listOfParts, timed(start, range -> range.to() - range.from(), fun), thr);
+            }
+
+            // more ranges than threads, or placed ranges: every thread processes its ranges one by one
+            final List<List<Range>> groups = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                groups.add(new ArrayList<>());
+            }
+            listOfParts.forEach(range -> groups.get(range.worker()).add(range));
+
+            final Object[] results = new Object[thr];
+            run(groups, timed(start, group -> group.stream().mapToInt(range -> range.to() - range.from()).sum(), group -> {
+                group.forEach(range -> results[range.index()] = fun.apply(range));
+                return null;
+            }), workers);
+
+            return view(results);
+        } finally {
+            metrics.called(System.nanoTime() - start);
+        }
+    }
+
+    /** Records wait, size and run time of every task of the call started at {@code start} */
+    private <P, R> Function<P, R> timed(final long start, final ToIntFunction<P> size, final Function<P, R> fun) {
+        return task -> {
+            final long from = System.nanoTime();
+            metrics.waited(from - start);
+            metrics.chunk(size.applyAsInt(task));
+            try {
+                return fun.apply(task);
+            } finally {
+                metrics.ran(System.nanoTime() - from);
+            }
+        };
+    }
+
+    private <P, R> List<R> run(final List<P> listOfParts, final Function<P, R> fun, final int thr) throws InterruptedException {
+        if (placed && (parallelMapper != null ? parallelMapper : pool) instanceof ParallelMapperImpl mapper) {
+            return mapper.mapPlaced(fun, listOfParts);
+        }
+        if (parallelMapper != null) {
+            return parallelMapper.map(fun, listOfParts);
+        }
+        if (thr == 1) {
+            return Collections.singletonList(fun.apply(listOfParts.get(0)));
+        }
+        if (pool != null) {
+            return pool.map(fun, listOfParts, true);
+        }
+
+        final List<R> res = new ArrayList<>(Collections.nCopies(thr, null));
+        final List<Thread> listOfThreads = new ArrayList<>();
+
+        // the calling thread takes the first part itself
+        for (int i = 1; i < thr; i++) {
+            final var ind = i;
+            final var thread = new Thread(() -> res.set(ind, fun.apply(listOfParts.get(ind))));
+
+            thread.start();
+
+            listOfThreads.add(thread);
+        }
+
+        final var failed = new InterruptedException();
+        try {
+            res.set(0, fun.apply(listOfParts.get(0)));
+        } finally {
+            joinAll(listOfThreads, failed);
+        }
+
+        if (failed.getSuppressed().length != 0) {
+            throw failed;
+        }
+
+        return res;
+    }
+
+    private static void joinAll(final List<Thread> listOfThreads, final InterruptedException failed) {
+        for (final Thread thread : listOfThreads) {
+            assert thread != null;
+
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                failed.addSuppressed(e);
+            }
+        }
     }
 
     private <T, R> List<R> nonNullThreading(final int threads, final List<T> values, final Function<Stream<T>, R> fun) throws InterruptedException {
@@ -0,0 +1,182 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+import javax.management.ConstructorParameters;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative values with logarithmic buckets: every power of two is split
+ * into {@value #SUB_BUCKETS} buckets, so quantiles are reported within 1/16 of the value,
+ * as in HDR histograms. Buckets are striped counters, so recording from many threads
+ * does not contend on one cache line. A bucket is created when the first value falls
+ * into it, so a histogram that records nothing or a narrow range of values stays small.
+ *
+ * @author AlexSin
+ */
+public final class LogHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<>(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /** Creates empty histogram */
+    public LogHistogram() {
+    }
+
+    private static int bucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) (value >>> (exponent - SUB_BITS)) - SUB_BUCKETS;
+    }
+
+    /** Middle of the bucket, the value reported for everything recorded into it */
+    private static long middle(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long from = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return from + (1L << shift) / 2;
+    }
+
+    /**
+     * Records a value, negative ones are recorded as zero
+     *
+     * @param value value to record
+     */
+    public void record(final long value) {
+        final long v = Math.max(value, 0);
+        final int bucket = bucket(v);
+        LongAdder adder = buckets.get(bucket);
+        if (adder == null) {
+            buckets.compareAndSet(bucket, null, new LongAdder());
+            adder = buckets.get(bucket);
+        }
+        adder.increment();
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Returns approximate quantile of recorded values
+     *
+     * @param quantile quantile from {@code 0} to {@code 1}
+     *
+     * @return value not less than the given part of recorded values, {@code 0} if there are none
+     */
+    public long quantile(final double quantile) {
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            final LongAdder adder = buckets.get(i);
+            counts[i] = adder == null ? 0 : adder.sum();
+            total += counts[i];
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(middle(i), max.get());
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns current state of the histogram. Values recorded concurrently
+     * may be reflected partially
+     *
+     * @return snapshot of count, mean and quantiles
+     */
+    public Snapshot snapshot() {
+        final long count = this.count.sum();
+        return new Snapshot(
+                count,
+                count == 0 ? 0 : (double) sum.sum() / count,
+                quantile(0.5),
+                quantile(0.9),
+                quantile(0.99),
+                max.get()
+        );
+    }
+
+    /** Immutable state of a histogram, an open type for JMX */
+    public static final class Snapshot {
+
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long max;
+
+        /**
+         * Creates snapshot
+         *
+         * @param count number of recorded values
+         * @param mean mean of recorded values
+         * @param p50 median
+         * @param p90 90th percentile
+         * @param p99 99th percentile
+         * @param max maximal recorded value
+         */
+        @ConstructorParameters({"count", "mean", "p50", "p90", "p99", "max"})
+        public Snapshot(final long count, final double mean, final long p50, final long p90, final long p99, final long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        /** @return number of recorded values */
+        public long getCount() {
+            return count;
+        }
+
+        /** @return mean of recorded values */
+        public double getMean() {
+            return mean;
+        }
+
+        /** @return median */
+        public long getP50() {
+            return p50;
+        }
+
+        /** @return 90th percentile */
+        public long getP90() {
+            return p90;
+        }
+
+        /** @return 99th percentile */
+        public long getP99() {
+            return p99;
+        }
+
+        /** @return maximal recorded value */
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d", count, mean, p50, p90, p99, max);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of {@link ParallelMapperImpl}: metrics of calls, depth of the queue, and time
+ * every worker spends busy and idle.
+ *
+ * @author AlexSin
+ */
+public final class MapperMetrics extends ParallelMetrics implements MapperMetricsMXBean {
+
+    private final IntSupplier queueDepth;
+    private final LongAdder[] busy;
+    private final LongAdder[] idle;
+
+    MapperMetrics(final int workers, final IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+        this.busy = adders(workers);
+        this.idle = adders(workers);
+    }
+
+    private static LongAdder[] adders(final int size) {
+        final LongAdder[] adders = new LongAdder[size];
+        Arrays.setAll(adders, i -> new LongAdder());
+        return adders;
+    }
+
+    void busy(final int worker, final long nanos) {
+        busy[worker].add(nanos);
+    }
+
+    void idle(final int worker, final long nanos) {
+        idle[worker].add(nanos);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public long[] getWorkerBusyNanos() {
+        return Arrays.stream(busy).mapToLong(LongAdder::sum).toArray();
+    }
+
+    @Override
+    public long[] getWorkerIdleNanos() {
+        return Arrays.stream(idle).mapToLong(LongAdder::sum).toArray();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s%n  queue=%d busy=%s idle=%s", super.toString(), getQueueDepth(),
+                Arrays.toString(getWorkerBusyNanos()), Arrays.toString(getWorkerIdleNanos()));
+    }
+}
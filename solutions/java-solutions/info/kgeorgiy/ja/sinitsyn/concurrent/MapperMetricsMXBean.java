@@ -0,0 +1,17 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+/**
+ * Management interface of {@link MapperMetrics}. Times are in nanoseconds.
+ *
+ * @author AlexSin
+ */
+public interface MapperMetricsMXBean extends ParallelMetricsMXBean {
+    /** @return number of tasks waiting in the queue now */
+    int getQueueDepth();
+
+    /** @return time every worker spent running tasks */
+    long[] getWorkerBusyNanos();
+
+    /** @return time every worker spent waiting for tasks */
+    long[] getWorkerIdleNanos();
+}
@@ -0,0 +1,28 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+import java.util.function.BinaryOperator;
+
+/**
+ * Associative operation with an identity element. Associativity is what lets
+ * {@link IterativeParallelism} reduce parts of a list independently and then
+ * combine their results in order.
+ *
+ * @param identity identity element: {@code operator(identity, x) == operator(x, identity) == x}
+ * @param operator associative operation
+ * @param <T> element type
+ *
+ * @author AlexSin
+ */
+public record Monoid<T>(T identity, BinaryOperator<T> operator) {
+    /**
+     * Reduces two values
+     *
+     * @param left left operand
+     * @param right right operand
+     *
+     * @return result of the operation
+     */
+    public T apply(final T left, final T right) {
+        return operator.apply(left, right);
+    }
+}
@@ -3,47 +3,151 @@ package info.kgeorgiy.ja.sinitsyn.concurrent;
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 
 /**
- * Implementation for {@link ParallelMapper}
+ * Implementation for {@link ParallelMapper}. Calls of {@link #map(Function, List)} share one
+ * queue in order of arrival. Callers that should not wait behind each other get their own
+ * {@link #tenant(String, int) tenants}: every tenant has its own queue, and workers take
+ * tasks from the tenants in weighted round-robin order. Besides, every worker has its own
+ * queue of tasks placed on it, which it takes first.
  *
  * @author AlexSin
  * @see ParallelMapper
  */
 public class ParallelMapperImpl implements ParallelMapper {
 
+    /** What {@code map} does when the queue of tasks is full */
+    public enum Admission {
+        /** Wait until workers take enough tasks */
+        BLOCK,
+        /** Throw {@link IllegalStateException}, as {@link Queue#add} of a bounded queue does */
+        REJECT
+    }
+
+    /** Capacity of an unbounded queue */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    /** Number of ranges per worker thread a list is split into, so that uneven ranges are balanced */
+    private static final int CHUNKS_PER_THREAD = 4;
+    /** Longest range of an ordered call, bounds results held by one range */
+    private static final int ORDERED_CHUNK = 1024;
+
     private final List<Thread> threads;
-    private final Queue<Runnable> tasks;
+    /** Tenants with queued tasks in round-robin order, monitor of the whole queue */
+    private final Deque<Tenant> active;
+    private final List<Tenant> tenants;
+    private final Tenant common;
+    /** Tasks placed on every worker, guarded by {@link #active} */
+    private final List<Queue<Task>> placed;
+    private final MapperMetrics metrics;
+    private final int capacity;
+    private final Admission admission;
+    private int queued;
+    /** Number of tasks the head of {@link #active} may still take in its turn */
+    private int credit;
+    private boolean closed;
 
     /**
      * Constructor to generated range of threads to solve the tasks
-     * that will be added to {@link #tasks} queue after each invoke
-     * of the {@link #map(Function, List)}method.
+     * that will be added to the queue after each invoke
+     * of the {@link #map(Function, List)}method. The queue is unbounded.
      *
      * @param threads count of threads to solve tasks
      */
     public ParallelMapperImpl(final int threads) {
-        tasks = new ArrayDeque<>();
+        this(threads, UNBOUNDED, Admission.BLOCK);
+    }
+
+    /**
+     * Creates mapper with bounded queue of tasks, so that producers can not pile up
+     * an arbitrary backlog. Every call is split into at most {@code capacity} tasks.
+     *
+     * @param threads count of threads to solve tasks
+     * @param capacity maximal number of tasks waiting in the queue, of all tenants
+     * @param admission what to do with a call when the queue is full
+     */
+    public ParallelMapperImpl(final int threads, final int capacity, final Admission admission) {
+        this(threads, capacity, admission, worker -> {});
+    }
+
+    /**
+     * Creates mapper whose workers run a hook before taking tasks. The hook is where a worker
+     * is pinned to a core or a NUMA node, for example through a native affinity library, as
+     * Java has no API for that. If the hook throws, the exception goes to the uncaught
+     * exception handler of the worker, and the worker runs unpinned.
+     * <p>
+     * The hook only pins threads: tasks of the shared queues go to whichever worker is free.
+     * Placement of ranges follows from it when {@link IterativeParallelism} with a
+     * {@link IterativeParallelism#withPartitioner(Partitioner) partitioner} runs on this mapper:
+     * ranges of its worker {@code i} are then run by worker {@code i % threads} of the mapper.
+     *
+     * @param threads count of threads to solve tasks
+     * @param capacity maximal number of tasks waiting in the queue, of all tenants, or {@link #UNBOUNDED}
+     * @param admission what to do with a call when the queue is full
+     * @param workerStart hook called by every worker with its number from {@code 0} to {@code threads - 1}
+     */
+    public ParallelMapperImpl(final int threads, final int capacity, final Admission admission,
+                              final IntConsumer workerStart) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+
+        this.active = new ArrayDeque<>();
+        this.tenants = new ArrayList<>();
+        this.capacity = capacity;
+        this.admission = admission;
+        this.common = tenant("default", 1);
+        this.placed = IntStream.range(0, threads).<Queue<Task>>mapToObj(i -> new ArrayDeque<>()).toList();
+        this.metrics = new MapperMetrics(threads, this::queueDepth);
 
         this.threads = IntStream.range(0, threads).mapToObj(i -> {
             final var thread = new Thread(() -> {
                 try {
+                    workerStart.accept(i);
+                } catch (final RuntimeException e) {
+                    final Thread current = Thread.currentThread();
+                    current.getUncaughtExceptionHandler().uncaughtException(current, e);
+                }
+
+                try {
+                    long idle = System.nanoTime();
                     while (!Thread.interrupted()) {
-                        final Runnable task;
+                        final Task task;
 
-                        synchronized (tasks) {
-                            while (tasks.isEmpty()) {
-                                tasks.wait();
+                        synchronized (active) {
+                            final Queue<Task> own = placed.get(i);
+                            while (active.isEmpty() && own.isEmpty()) {
+                                if (closed) {
+                                    return;
+                                }
+                                active.wait();
                             }
 
-                            task = tasks.poll();
+                            task = own.isEmpty() ? poll() : poll(own);
 
-                            tasks.notify();
+                            if (capacity == UNBOUNDED) {
+                                active.notify();
+                            } else {
+                                // producers waiting for space share the monitor with idle workers
+                                active.notifyAll();
+                            }
                         }
 
-                        task.run();
+                        final long start = System.nanoTime();
+                        metrics.idle(i, start - idle);
+                        metrics.waited(start - task.enqueued());
+
+                        task.range().run();
+
+                        idle = System.nanoTime();
+                        metrics.busy(i, idle - start);
+                        metrics.ran(idle - start);
+                        task.tenant().ran(idle - start);
                     }
                 } catch (InterruptedException e) {
                     // do nothing
@@ -58,50 +162,656 @@ public class ParallelMapperImpl implements ParallelMapper {
         }).toList();
     }
 
+    /**
+     * Statistics of a tenant
+     *
+     * @param name name of the tenant
+     * @param weight number of tasks the tenant takes in its turn
+     * @param queued number of tasks waiting in the queue now
+     * @param completed number of tasks run by workers
+     * @param waitNanos total time tasks spent in the queue
+     * @param runNanos total time workers spent running tasks
+     */
+    public record TenantStats(String name, int weight, int queued, long completed, long waitNanos, long runNanos) {
+    }
+
+    /**
+     * Caller of the mapper with its own queue of tasks. Workers take up to {@code weight}
+     * tasks of a tenant in a row and then go to the next tenant with queued tasks, so a
+     * call of one tenant waits for at most one turn of every other tenant rather than for
+     * all the tasks queued before it. Tasks are ranges of calls, so the fairness is per range.
+     * <p>
+     * The mapper keeps every tenant until it is {@link #close() closed}.
+     */
+    public final class Tenant implements ParallelMapper {
+
+        private final String name;
+        private final int weight;
+        /** Guarded by {@link #active}, as well as {@link #waitNanos} */
+        private final Queue<Task> queue = new ArrayDeque<>();
+        private long waitNanos;
+        private boolean closed;
+        private long completed;
+        private long runNanos;
+
+        private Tenant(final String name, final int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+
+        /**
+         * Returns name of the tenant
+         *
+         * @return name
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns weight of the tenant
+         *
+         * @return number of tasks the tenant takes in its turn
+         */
+        public int weight() {
+            return weight;
+        }
+
+        /**
+         * Maps function over the arguments in the queue of this tenant
+         *
+         * @see ParallelMapperImpl#map(Function, List)
+         */
+        @Override
+        public <T, R> List<R> map(final Function<? super T, ? extends R> f, final List<? extends T> args) throws InterruptedException {
+            return ParallelMapperImpl.this.map(this, f, args, false);
+        }
+
+        /**
+         * Maps function over the arguments in the queue of this tenant without waiting for the results
+         *
+         * @param f function to apply
+         * @param args arguments
+         * @param <T> argument type
+         * @param <R> result type
+         *
+         * @return future of the list of results
+         *
+         * @throws InterruptedException if calling thread was interrupted while waiting for space in the queue
+         *
+         * @see ParallelMapperImpl#mapAsync(Function, List)
+         */
+        public <T, R> CompletableFuture<List<R>> mapAsync(final Function<? super T, ? extends R> f,
+                                                          final List<? extends T> args) throws InterruptedException {
+            return ParallelMapperImpl.this.mapAsync(this, f, args);
+        }
+
+        /**
+         * Maps function over the arguments in the queue of this tenant and passes results to the consumer in order
+         *
+         * @param f function to apply
+         * @param args arguments
+         * @param consumer receiver of results
+         * @param <T> argument type
+         * @param <R> result type
+         *
+         * @throws InterruptedException if calling thread was interrupted
+         *
+         * @see ParallelMapperImpl#mapOrdered(Function, List, Consumer)
+         */
+        public <T, R> void mapOrdered(final Function<? super T, ? extends R> f, final List<? extends T> args,
+                                      final Consumer<? super R> consumer) throws InterruptedException {
+            ParallelMapperImpl.this.mapOrdered(this, f, args, consumer);
+        }
+
+        /**
+         * Returns statistics of this tenant
+         *
+         * @return current statistics
+         */
+        public TenantStats stats() {
+            final int queued;
+            final long waitNanos;
+            synchronized (active) {
+                queued = queue.size();
+                waitNanos = this.waitNanos;
+            }
+
+            synchronized (this) {
+                return new TenantStats(name, weight, queued, completed, waitNanos, runNanos);
+            }
+        }
+
+        private synchronized void ran(final long nanos) {
+            completed++;
+            runNanos += nanos;
+        }
+
+        /**
+         * Removes the tenant from the mapper, further calls of the tenant fail with
+         * {@link IllegalStateException}. Tasks already queued are still run, and workers
+         * are not stopped: they belong to the mapper
+         */
+        @Override
+        public void close() {
+            synchronized (active) {
+                closed = true;
+                tenants.remove(this);
+            }
+        }
+    }
+
+    private record Task(Tenant tenant, ThreadingWrapper<?> batch, Runnable range, long enqueued) {
+    }
+
+    /**
+     * Creates new tenant of this mapper
+     *
+     * @param name name of the tenant for statistics
+     * @param weight number of tasks the tenant takes in its turn
+     *
+     * @return tenant with an empty queue, kept by the mapper until it is {@link Tenant#close() closed}
+     */
+    public Tenant tenant(final String name, final int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight should be positive: " + weight);
+        }
+
+        final Tenant tenant = new Tenant(name, weight);
+        synchronized (active) {
+            tenants.add(tenant);
+        }
+
+        return tenant;
+    }
+
+    /**
+     * Returns statistics of all tenants, starting with the default one used by {@link #map(Function, List)}
+     *
+     * @return statistics of the tenants that are not closed, in order of creation
+     */
+    public List<TenantStats> stats() {
+        final List<Tenant> snapshot;
+        synchronized (active) {
+            snapshot = List.copyOf(tenants);
+        }
+
+        return snapshot.stream().map(Tenant::stats).toList();
+    }
+
+    /**
+     * Returns metrics of this mapper. Idle time of a worker is accounted when it takes a task
+     *
+     * @return metrics of all tenants together
+     */
+    public MapperMetrics metrics() {
+        return metrics;
+    }
+
+    private int queueDepth() {
+        synchronized (active) {
+            return queued;
+        }
+    }
+
+    /** Takes the next task, the caller holds {@link #active} and there are queued tasks */
+    private Task poll() {
+        final Tenant tenant = active.element();
+        if (credit == 0) {
+            credit = tenant.weight;
+        }
+
+        final Task task = tenant.queue.remove();
+        queued--;
+        credit--;
+        tenant.waitNanos += System.nanoTime() - task.enqueued();
+
+        if (tenant.queue.isEmpty()) {
+            active.remove();
+            credit = 0;
+        } else if (credit == 0) {
+            active.add(active.remove());
+        }
+
+        return task;
+    }
+
+    /** Takes the next task placed on a worker, the caller holds {@link #active} */
+    private Task poll(final Queue<Task> own) {
+        final Task task = own.remove();
+        queued--;
+        task.tenant().waitNanos += System.nanoTime() - task.enqueued();
+
+        return task;
+    }
+
+    /**
+     * Removes queued tasks of the failed call, so that they neither run nor hold space in the queue
+     *
+     * @param batch failed call
+     */
+    private void cancel(final ThreadingWrapper<?> batch) {
+        synchronized (active) {
+            for (final Iterator<Tenant> it = active.iterator(); it.hasNext(); ) {
+                final Tenant tenant = it.next();
+                final int size = tenant.queue.size();
+                tenant.queue.removeIf(task -> task.batch() == batch);
+                queued -= size - tenant.queue.size();
+
+                if (tenant.queue.isEmpty()) {
+                    if (tenant == active.peek()) {
+                        credit = 0;
+                    }
+                    it.remove();
+                }
+            }
+            for (final Queue<Task> own : placed) {
+                final int size = own.size();
+                own.removeIf(task -> task.batch() == batch);
+                queued -= size - own.size();
+            }
+
+            active.notifyAll();
+        }
+    }
+
+    /**
+     * State of one call: results, and completion of its ranges. The call is complete when
+     * all the ranges are done or when the first of them fails, whichever happens first
+     */
     private static final class ThreadingWrapper<E> {
 
         private final E[] arr;
+        private final int[] bounds;
         private int cd;
+        private Throwable error;
+        /** Set with the first error, tells running ranges to stop */
+        private volatile boolean cancelled;
+        private boolean completed;
+        private Runnable onDone;
 
         @SuppressWarnings("unchecked")
-        public ThreadingWrapper(final int size) {
-            cd = size;
+        public ThreadingWrapper(final int size, final int chunks) {
+            cd = chunks;
             arr = (E[]) new Object[size];
+
+            // the first size % chunks ranges are one element longer
+            bounds = new int[chunks + 1];
+            for (int i = 0; i < chunks; i++) {
+                bounds[i + 1] = bounds[i] + size / chunks + (i < size % chunks ? 1 : 0);
+            }
         }
 
-        public synchronized void done(final int index, final E e) {
+        public void set(final int index, final E e) {
             arr[index] = e;
+        }
 
-            if (--cd <= 0) {
-                notify();
+        /**
+         * Records failure of the call, later ones are added to the first as suppressed
+         *
+         * @return whether it is the first failure, that completes the call
+         */
+        public boolean fail(final Throwable e) {
+            synchronized (this) {
+                if (error != null) {
+                    error.addSuppressed(e);
+                    return false;
+                }
+
+                error = e;
+                cancelled = true;
+                notifyAll();
+            }
+
+            complete();
+            return true;
+        }
+
+        /** Marks a range as done, completes the call if it is the last one */
+        public void done() {
+            final boolean last;
+            synchronized (this) {
+                last = --cd <= 0;
+                notifyAll();
+            }
+
+            if (last) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                completed = true;
+            }
+
+            if (onDone != null) {
+                onDone.run();
             }
         }
 
         public synchronized E[] getArr() throws InterruptedException {
-            while (cd > 0) {
+            while (cd > 0 && error == null) {
                 wait();
             }
+            rethrow();
 
             return arr;
         }
+
+        private void rethrow() {
+            if (error instanceof RuntimeException e) {
+                throw e;
+            } else if (error instanceof Error e) {
+                throw e;
+            } else if (error != null) {
+                throw new IllegalStateException(error);
+            }
+        }
+    }
+
+    private <T, R> List<Runnable> ranges(final Function<? super T, ? extends R> f, final List<? extends T> args,
+                                         final ThreadingWrapper<R> tw) {
+        final List<Runnable> ranges = new ArrayList<>(tw.bounds.length - 1);
+        for (int i = 0; i + 1 < tw.bounds.length; i++) {
+            final int chunk = i;
+            metrics.chunk(tw.bounds[chunk + 1] - tw.bounds[chunk]);
+
+            ranges.add(() -> {
+                try {
+                    for (int j = tw.bounds[chunk]; j < tw.bounds[chunk + 1] && !tw.cancelled; j++) {
+                        tw.set(j, f.apply(args.get(j)));
+                    }
+                } catch (final Throwable e) {
+                    if (tw.fail(e)) {
+                        cancel(tw);
+                    }
+                }
+                tw.done();
+            });
+        }
+
+        return ranges;
     }
 
+    private <R> ThreadingWrapper<R> wrapper(final int size) {
+        return new ThreadingWrapper<>(size, Math.min(size, Math.min(capacity, threads.size() * CHUNKS_PER_THREAD)));
+    }
+
+    private void submit(final Tenant tenant, final ThreadingWrapper<?> batch,
+                        final List<Runnable> ranges) throws InterruptedException {
+        submit(tenant, batch, ranges, false);
+    }
+
+    /** Queues the ranges, if {@code place} then range {@code k} is placed on worker {@code k % threads} */
+    private void submit(final Tenant tenant, final ThreadingWrapper<?> batch,
+                        final List<Runnable> ranges, final boolean place) throws InterruptedException {
+        synchronized (active) {
+            if (closed) {
+                throw new IllegalStateException("Mapper is closed");
+            }
+            if (tenant.closed) {
+                throw new IllegalStateException("Tenant is closed");
+            }
+            if (admission == Admission.REJECT && queued > 0 && queued + ranges.size() > capacity) {
+                throw new IllegalStateException("Queue is full");
+            }
+
+            try {
+                for (int k = 0; k < ranges.size(); k++) {
+                    while (queued >= capacity) {
+                        active.wait();
+                        if (closed) {
+                            throw new IllegalStateException("Mapper is closed");
+                        }
+                    }
+
+                    final Task task = new Task(tenant, batch, ranges.get(k), System.nanoTime());
+                    if (place) {
+                        placed.get(k % placed.size()).add(task);
+                    } else {
+                        if (tenant.queue.isEmpty()) {
+                            active.add(tenant);
+                        }
+                        tenant.queue.add(task);
+                    }
+                    queued++;
+                    active.notifyAll();
+                }
+            } catch (final InterruptedException | IllegalStateException e) {
+                // the caller is gone, ranges queued so far should not run
+                batch.fail(e);
+                cancel(batch);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Maps function over the arguments. The list is split into at most
+     * {@value #CHUNKS_PER_THREAD} ranges per thread, every range is one task that writes
+     * its results straight into the resulting array, so the monitors are taken once per
+     * range rather than once per element. If {@code f} throws, the call completes at once:
+     * the first exception is rethrown with later ones suppressed, queued ranges of the call
+     * are dropped and running ones stop before their next element
+     *
+     * @throws IllegalStateException if the queue is full and admission is {@link Admission#REJECT},
+     * or if the mapper is closed
+     */
     @Override
     public <T, R> List<R> map(final Function<? super T, ? extends R> f, final List<? extends T> args) throws InterruptedException {
-        final var tw = new ThreadingWrapper<R>(args.size());
+        return map(common, f, args, false);
+    }
 
-        synchronized (tasks) {
-            IntStream.range(0, args.size())
-                    .mapToObj(i -> Map.entry(i, args.get(i)))
-                    .forEach(ew -> tasks.add(() -> tw.done(ew.getKey(), f.apply(ew.getValue()))));
-            tasks.notify();
+    /**
+     * Maps function over the arguments, optionally running the first range on the calling
+     * thread instead of idling until the workers are done
+     *
+     * @param f function to apply
+     * @param args arguments
+     * @param callerRuns whether the calling thread runs the first range itself
+     * @param <T> argument type
+     * @param <R> result type
+     *
+     * @return list of results in order of the arguments
+     *
+     * @throws InterruptedException if calling thread was interrupted
+     *
+     * @see #map(Function, List)
+     */
+    <T, R> List<R> map(final Function<? super T, ? extends R> f, final List<? extends T> args,
+                       final boolean callerRuns) throws InterruptedException {
+        return map(common, f, args, callerRuns);
+    }
+
+    /**
+     * Maps function over the arguments, argument {@code k} is one task placed on
+     * worker {@code k % threads}, which takes it before tasks of the shared queues
+     *
+     * @param f function to apply
+     * @param args arguments
+     * @param <T> argument type
+     * @param <R> result type
+     *
+     * @return list of results in order of the arguments
+     *
+     * @throws InterruptedException if calling thread was interrupted
+     *
+     * @see #map(Function, List)
+     */
+    <T, R> List<R> mapPlaced(final Function<? super T, ? extends R> f, final List<? extends T> args) throws InterruptedException {
+        final long start = System.nanoTime();
+        final ThreadingWrapper<R> tw = new ThreadingWrapper<>(args.size(), args.size());
+        submit(common, tw, ranges(f, args, tw), true);
+
+        try {
+            return Arrays.asList(tw.getArr());
+        } finally {
+            metrics.called(System.nanoTime() - start);
         }
+    }
+
+    private <T, R> List<R> map(final Tenant tenant, final Function<? super T, ? extends R> f,
+                               final List<? extends T> args, final boolean callerRuns) throws InterruptedException {
+        final long start = System.nanoTime();
+        final ThreadingWrapper<R> tw = wrapper(args.size());
+        final List<Runnable> ranges = ranges(f, args, tw);
+
+        final int first = callerRuns && !ranges.isEmpty() ? 1 : 0;
+        submit(tenant, tw, ranges.subList(first, ranges.size()));
+        if (first > 0) {
+            ranges.get(0).run();
+        }
+
+        try {
+            return Arrays.asList(tw.getArr());
+        } finally {
+            metrics.called(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Maps function over the arguments without waiting for the results. Admission to the
+     * queue is the same as for {@link #map(Function, List)}: with {@link Admission#BLOCK}
+     * this method may wait for space in the queue, but never for the results
+     *
+     * @param f function to apply
+     * @param args arguments
+     * @param <T> argument type
+     * @param <R> result type
+     *
+     * @return future of the list of results in order of the arguments, completed
+     * exceptionally with the first exception thrown by {@code f}
+     *
+     * @throws InterruptedException if calling thread was interrupted while waiting for space in the queue,
+     * ranges of the call queued so far are dropped
+     * @throws IllegalStateException if the queue is full and admission is {@link Admission#REJECT},
+     * or if the mapper is closed
+     */
+    public <T, R> CompletableFuture<List<R>> mapAsync(final Function<? super T, ? extends R> f,
+                                                      final List<? extends T> args) throws InterruptedException {
+        return mapAsync(common, f, args);
+    }
+
+    private <T, R> CompletableFuture<List<R>> mapAsync(final Tenant tenant, final Function<? super T, ? extends R> f,
+                                                       final List<? extends T> args) throws InterruptedException {
+        final long start = System.nanoTime();
+        final ThreadingWrapper<R> tw = wrapper(args.size());
+        final CompletableFuture<List<R>> future = new CompletableFuture<>();
+        if (args.isEmpty()) {
+            future.complete(List.of());
+            return future;
+        }
+
+        tw.onDone = () -> {
+            metrics.called(System.nanoTime() - start);
+
+            final Throwable error;
+            synchronized (tw) {
+                error = tw.error;
+            }
+
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(Arrays.asList(tw.arr));
+            }
+        };
+        submit(tenant, tw, ranges(f, args, tw));
 
-        return Arrays.asList(tw.getArr());
+        return future;
+    }
+
+    /**
+     * Maps function over the arguments and passes results to the consumer in order of
+     * the arguments as soon as all the preceding ones are computed. The consumer is called
+     * by the calling thread. Arguments are split into ranges of at most {@value #ORDERED_CHUNK}
+     * elements, and only a window of {@value #CHUNKS_PER_THREAD} ranges per thread, but no more
+     * than the queue capacity, is submitted at a time, the next range is submitted once the oldest
+     * one is consumed. So only the results of the window are held at once.
+     * <p>
+     * If a range or the consumer fails, the ranges of the window are cancelled, results
+     * preceding the failed range are already passed to the consumer
+     *
+     * @param f function to apply
+     * @param args arguments
+     * @param consumer receiver of results
+     * @param <T> argument type
+     * @param <R> result type
+     *
+     * @throws InterruptedException if calling thread was interrupted
+     * @throws IllegalStateException if the queue is full and admission is {@link Admission#REJECT},
+     * or if the mapper is closed
+     */
+    public <T, R> void mapOrdered(final Function<? super T, ? extends R> f, final List<? extends T> args,
+                                  final Consumer<? super R> consumer) throws InterruptedException {
+        mapOrdered(common, f, args, consumer);
     }
 
+    private <T, R> void mapOrdered(final Tenant tenant, final Function<? super T, ? extends R> f,
+                                   final List<? extends T> args, final Consumer<? super R> consumer) throws InterruptedException {
+        final long start = System.nanoTime();
+        final int window = Math.min(capacity, threads.size() * CHUNKS_PER_THREAD);
+        final int chunk = Math.max(1, Math.min(ORDERED_CHUNK, (args.size() + window - 1) / window));
+        final Deque<ThreadingWrapper<R>> inFlight = new ArrayDeque<>(window);
+
+        try {
+            int next = 0;
+            while (next < args.size() || !inFlight.isEmpty()) {
+                while (next < args.size() && inFlight.size() < window) {
+                    final int to = Math.min(args.size(), next + chunk);
+                    final ThreadingWrapper<R> tw = new ThreadingWrapper<>(to - next, 1);
+                    submit(tenant, tw, ranges(f, args.subList(next, to), tw));
+                    inFlight.add(tw);
+                    next = to;
+                }
+
+                for (final R result : inFlight.peek().getArr()) {
+                    consumer.accept(result);
+                }
+                inFlight.remove();
+            }
+        } catch (final Throwable e) {
+            for (final ThreadingWrapper<R> tw : inFlight) {
+                // the failed range already has its own error
+                if (!tw.cancelled && tw.fail(new IllegalStateException("Call is cancelled"))) {
+                    cancel(tw);
+                }
+            }
+            throw e;
+        }
+        metrics.called(System.nanoTime() - start);
+    }
+
+    /**
+     * Stops the workers. Queued tasks are dropped, and their calls fail with
+     * {@link IllegalStateException} rather than wait forever
+     */
     @Override
     public void close() {
+        final Set<ThreadingWrapper<?>> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+        synchronized (active) {
+            closed = true;
+
+            for (final Tenant tenant : active) {
+                tenant.queue.forEach(task -> pending.add(task.batch()));
+                tenant.queue.clear();
+            }
+            active.clear();
+            for (final Queue<Task> own : placed) {
+                own.forEach(task -> pending.add(task.batch()));
+                own.clear();
+            }
+            queued = 0;
+            credit = 0;
+
+            active.notifyAll();
+        }
+        pending.forEach(batch -> batch.fail(new IllegalStateException("Mapper is closed")));
+
         threads.forEach(t -> {
             t.interrupt();
 
@@ -114,4 +824,4 @@ public class ParallelMapperImpl implements ParallelMapper {
             }
         });
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Tests for {@link ParallelMapperImpl}: results, release of the queue by a producer
+ * interrupted while waiting for space in it, and placement of partitioned ranges on workers
+ *
+ * @author AlexSin
+ */
+@RunWith(JUnit4.class)
+public final class ParallelMapperImplTest {
+
+    @Test
+    public void test01_map() throws InterruptedException {
+        final List<Integer> args = IntStream.range(0, 10_000).boxed().toList();
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(3, 2, ParallelMapperImpl.Admission.BLOCK)) {
+            Assert.assertEquals(args.stream().map(x -> x * 2).toList(), mapper.map(x -> x * 2, args));
+        }
+    }
+
+    @Test(timeout = 5_000)
+    public void test02_interruptedProducerDropsRanges() throws Exception {
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(1, 2, ParallelMapperImpl.Admission.BLOCK)) {
+            final CountDownLatch release = new CountDownLatch(1);
+            final CompletableFuture<List<Integer>> blocker = mapper.mapAsync(x -> {
+                await(release);
+                return x;
+            }, List.of(0));
+            final CompletableFuture<List<Integer>> filler = mapper.mapAsync(x -> x, List.of(1));
+
+            // the worker is blocked, so the first range of the producer takes the last place in the queue
+            final AtomicInteger applied = new AtomicInteger();
+            final AtomicReference<Throwable> thrown = new AtomicReference<>();
+            final Thread producer = new Thread(() -> {
+                try {
+                    mapper.map(x -> applied.incrementAndGet(), IntStream.range(0, 100).boxed().toList());
+                } catch (final Throwable e) {
+                    thrown.set(e);
+                }
+            });
+            producer.start();
+            while (producer.getState() != Thread.State.WAITING) {
+                Thread.sleep(10);
+            }
+            producer.interrupt();
+            producer.join();
+            Assert.assertTrue(String.valueOf(thrown.get()), thrown.get() instanceof InterruptedException);
+
+            release.countDown();
+            Assert.assertEquals(List.of(0), blocker.get());
+            Assert.assertEquals(List.of(1), filler.get());
+            Assert.assertEquals(List.of(2), mapper.map(x -> x, List.of(2)));
+            Assert.assertEquals("Ranges of the interrupted call ran", 0, applied.get());
+        }
+    }
+
+    @Test
+    public void test03_placedRanges() throws InterruptedException {
+        final ThreadLocal<Integer> worker = ThreadLocal.withInitial(() -> -1);
+        final List<Integer> args = IntStream.range(0, 1000).boxed().toList();
+        final int[] seen = new int[args.size()];
+
+        try (final ParallelMapperImpl mapper = new ParallelMapperImpl(2, 4, ParallelMapperImpl.Admission.BLOCK, worker::set)) {
+            final IterativeParallelism parallelism = new IterativeParallelism(mapper)
+                    .withPartitioner(Partitioner.interleaved(10));
+            parallelism.count(3, args, x -> {
+                seen[x] = worker.get();
+                return true;
+            });
+        }
+
+        for (int x = 0; x < args.size(); x++) {
+            Assert.assertEquals("Worker of " + x, x / 10 % 3 % 2, seen[x]);
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of calls of {@link IterativeParallelism}: calls, tasks, their latencies and sizes.
+ * Everything is recorded into striped counters and {@link LogHistogram}s, so metrics are
+ * always on. Mappers that own their workers add the queue and the workers,
+ * see {@link MapperMetrics}.
+ *
+ * @author AlexSin
+ */
+public class ParallelMetrics implements ParallelMetricsMXBean {
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder tasks = new LongAdder();
+    private final LogHistogram callLatency = new LogHistogram();
+    private final LogHistogram queueWait = new LogHistogram();
+    private final LogHistogram runLatency = new LogHistogram();
+    private final LogHistogram chunkSizes = new LogHistogram();
+
+    ParallelMetrics() {
+    }
+
+    void called(final long nanos) {
+        calls.increment();
+        callLatency.record(nanos);
+    }
+
+    void chunk(final int size) {
+        chunkSizes.record(size);
+    }
+
+    void waited(final long nanos) {
+        queueWait.record(nanos);
+    }
+
+    void ran(final long nanos) {
+        tasks.increment();
+        runLatency.record(nanos);
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server
+     *
+     * @param name value of the {@code name} key of the object name
+     *
+     * @return name of the registered MBean, to unregister it
+     *
+     * @throws JMException if the name is taken or invalid
+     */
+    public ObjectName register(final String name) throws JMException {
+        final ObjectName objectName = new ObjectName(
+                "info.kgeorgiy.ja.sinitsyn:type=" + getClass().getSimpleName() + ",name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getTasks() {
+        return tasks.sum();
+    }
+
+    @Override
+    public LogHistogram.Snapshot getCallLatency() {
+        return callLatency.snapshot();
+    }
+
+    @Override
+    public LogHistogram.Snapshot getQueueWait() {
+        return queueWait.snapshot();
+    }
+
+    @Override
+    public LogHistogram.Snapshot getRunLatency() {
+        return runLatency.snapshot();
+    }
+
+    @Override
+    public LogHistogram.Snapshot getChunkSizes() {
+        return chunkSizes.snapshot();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("calls=%d tasks=%d%n  call: %s%n  wait: %s%n  run:  %s%n  chunk: %s",
+                getCalls(), getTasks(),
+                getCallLatency(), getQueueWait(), getRunLatency(), getChunkSizes());
+    }
+}
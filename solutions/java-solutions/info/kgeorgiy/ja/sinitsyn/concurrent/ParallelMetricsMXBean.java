@@ -0,0 +1,27 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+/**
+ * Management interface of {@link ParallelMetrics}. Times are in nanoseconds,
+ * sizes are in elements.
+ *
+ * @author AlexSin
+ */
+public interface ParallelMetricsMXBean {
+    /** @return number of finished calls */
+    long getCalls();
+
+    /** @return number of finished tasks */
+    long getTasks();
+
+    /** @return duration of calls, from the call to the last result */
+    LogHistogram.Snapshot getCallLatency();
+
+    /** @return time tasks spend between submission and start */
+    LogHistogram.Snapshot getQueueWait();
+
+    /** @return time tasks run */
+    LogHistogram.Snapshot getRunLatency();
+
+    /** @return number of elements per task */
+    LogHistogram.Snapshot getChunkSizes();
+}
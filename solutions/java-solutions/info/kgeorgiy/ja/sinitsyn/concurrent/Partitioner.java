@@ -0,0 +1,86 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+/**
+ * Strategy of splitting indices {@code [0, size)} of a list or an array among worker
+ * threads of {@link IterativeParallelism}. Indices are split into consecutive blocks,
+ * and block {@code i} is processed by worker {@code i % workers}, so results are still
+ * combined in order of the elements. Empty blocks are skipped.
+ *
+ * @author AlexSin
+ */
+@FunctionalInterface
+public interface Partitioner {
+    /**
+     * Splits indices into consecutive blocks
+     *
+     * @param workers number of worker threads, not greater than {@code size}
+     * @param size number of elements, positive
+     *
+     * @return bounds of blocks in ascending order, from {@code 0} to {@code size}
+     */
+    int[] split(int workers, int size);
+
+    /**
+     * One block per worker of {@code size / workers} elements, the first {@code size % workers}
+     * blocks are one element longer. Every worker streams its own part of memory.
+     *
+     * @return contiguous partitioner
+     */
+    static Partitioner contiguous() {
+        return (workers, size) -> {
+            final int[] bounds = new int[workers + 1];
+            for (int i = 0; i < workers; i++) {
+                bounds[i + 1] = bounds[i] + size / workers + (i < size % workers ? 1 : 0);
+            }
+            return bounds;
+        };
+    }
+
+    /**
+     * Blocks of {@code block} elements dealt to workers round-robin, so all workers move
+     * through memory together and a slow worker holds back only its own blocks.
+     *
+     * @param block number of elements in a block
+     *
+     * @return interleaved partitioner
+     */
+    static Partitioner interleaved(final int block) {
+        if (block <= 0) {
+            throw new IllegalArgumentException("Block should be positive: " + block);
+        }
+
+        return (workers, size) -> {
+            final int[] bounds = new int[(size + block - 1) / block + 1];
+            for (int i = 1; i < bounds.length; i++) {
+                bounds[i] = (int) Math.min((long) i * block, size);
+            }
+            return bounds;
+        };
+    }
+
+    /**
+     * One block per worker, as {@link #contiguous()}, with inner bounds rounded to multiples
+     * of {@code alignment} elements. With the alignment of a cache line (16 {@code int}s or
+     * 8 {@code long}s of 64 bytes) neighbouring workers do not write to the same line of an
+     * array of results, counting from the start of the array.
+     *
+     * @param alignment number of elements bounds are multiples of
+     *
+     * @return aligned partitioner
+     */
+    static Partitioner aligned(final int alignment) {
+        if (alignment <= 0) {
+            throw new IllegalArgumentException("Alignment should be positive: " + alignment);
+        }
+
+        return (workers, size) -> {
+            final int[] bounds = new int[workers + 1];
+            for (int i = 1; i < workers; i++) {
+                final long bound = (long) size * i / workers;
+                bounds[i] = (int) Math.min((bound + alignment / 2) / alignment * alignment, size);
+            }
+            bounds[workers] = size;
+            return bounds;
+        };
+    }
+}
@@ -0,0 +1,191 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * {@link ParallelMapper} for blocking functions (I/O, lookups in a local store). Every
+ * call runs on fresh virtual threads, so there are no long-lived workers, and concurrency
+ * is limited by a budget of permits shared by all calls instead of by a number of threads:
+ * the function is never applied to more than {@code permits} arguments at once.
+ *
+ * <p>Needs Java 21 to run on virtual threads; on older runtimes it falls back to
+ * short-lived platform threads with the same budget, but every call starts at most
+ * as many of them as there are available processors.
+ *
+ * @author AlexSin
+ * @see ParallelMapper
+ */
+public class VirtualThreadParallelMapper implements ParallelMapper {
+
+    private final int permits;
+    private final Semaphore budget;
+    /** Number of threads started by one call */
+    private final int parallelism;
+    /** Calls in progress, failed by {@link #close()} */
+    private final Set<Call> calls = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed = false;
+
+    /**
+     * Creates mapper with the given budget
+     *
+     * @param permits maximal number of concurrent applications of mapped functions
+     */
+    public VirtualThreadParallelMapper(final int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits count should be positive: " + permits);
+        }
+
+        this.permits = permits;
+        this.budget = new Semaphore(permits);
+        this.parallelism = VirtualThreads.isSupported()
+                ? permits
+                : Math.min(permits, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Threads and the first error of one {@link #map} call */
+    private static final class Call {
+        private final List<Thread> threads = new ArrayList<>();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private boolean cancelled = false;
+
+        private void fail(final Throwable e) {
+            if (!error.compareAndSet(null, e)) {
+                error.get().addSuppressed(e);
+            }
+        }
+
+        private synchronized void start(final Thread thread) {
+            if (!cancelled) {
+                thread.start();
+                threads.add(thread);
+            }
+        }
+
+        private synchronized List<Thread> threads() {
+            return List.copyOf(threads);
+        }
+
+        /** Fails the call and interrupts its threads */
+        private synchronized void cancel(final Throwable e) {
+            fail(e);
+            cancelled = true;
+            threads.forEach(Thread::interrupt);
+        }
+    }
+
+    /**
+     * Checks whether this mapper really runs on virtual threads
+     *
+     * @return {@code false} if the runtime has no virtual threads and platform ones are used
+     */
+    public static boolean isVirtual() {
+        return VirtualThreads.isSupported();
+    }
+
+    /**
+     * Returns budget of this mapper
+     *
+     * @return maximal number of concurrent applications of mapped functions
+     */
+    public int permits() {
+        return permits;
+    }
+
+    /**
+     * Maps function over the arguments. Starts at most {@code permits} threads that take
+     * arguments one by one, each application holds one permit of the shared budget. If
+     * {@code f} throws, the rest of the arguments are skipped and the first exception is
+     * rethrown with others suppressed
+     *
+     * @throws InterruptedException if calling thread was interrupted, running applications are interrupted too
+     * @throws IllegalStateException if this mapper is closed, before or during the call
+     */
+    @Override
+    public <T, R> List<R> map(final Function<? super T, ? extends R> f, final List<? extends T> args) throws InterruptedException {
+        final Call call = new Call();
+        calls.add(call);
+        try {
+            // either close() sees the call or the call sees the closed flag
+            if (closed) {
+                throw new IllegalStateException("Mapper is closed");
+            }
+
+            return map(f, args, call);
+        } finally {
+            calls.remove(call);
+        }
+    }
+
+    private <T, R> List<R> map(final Function<? super T, ? extends R> f, final List<? extends T> args,
+                               final Call call) throws InterruptedException {
+        final Object[] results = new Object[args.size()];
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Throwable> error = call.error;
+
+        final Runnable worker = () -> {
+            int index;
+            while (error.get() == null && (index = next.getAndIncrement()) < results.length) {
+                try {
+                    budget.acquire();
+                    try {
+                        results[index] = f.apply(args.get(index));
+                    } finally {
+                        budget.release();
+                    }
+                } catch (final Throwable e) {
+                    call.fail(e);
+                }
+            }
+        };
+
+        for (int i = 0; i < Math.min(parallelism, args.size()); i++) {
+            call.start(VirtualThreads.factory().newThread(worker));
+        }
+
+        final List<Thread> threads = call.threads();
+        try {
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+        } catch (final InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            throw e;
+        }
+
+        final Throwable e = error.get();
+        if (e instanceof RuntimeException runtime) {
+            throw runtime;
+        } else if (e instanceof Error fatal) {
+            throw fatal;
+        } else if (e != null) {
+            throw new IllegalStateException(e);
+        }
+
+        @SuppressWarnings("unchecked")
+        final List<R> result = (List<R>) Arrays.asList(results);
+        return result;
+    }
+
+    /**
+     * Rejects further calls. Calls in progress fail with {@link IllegalStateException},
+     * and their threads are interrupted. There are no long-lived threads to stop
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        for (final Call call : calls) {
+            call.cancel(new IllegalStateException("Mapper is closed"));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads without compiling against Java 21. On older runtimes
+ * (or Java 19-20 without preview features) platform threads are used instead.
+ *
+ * @author AlexSin
+ */
+final class VirtualThreads {
+
+    private static final ThreadFactory FACTORY = virtualFactory();
+
+    private VirtualThreads() {
+    }
+
+    private static ThreadFactory virtualFactory() {
+        try {
+            // Thread.ofVirtual().factory()
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (final ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the runtime supports virtual threads
+     *
+     * @return {@code true} if {@link #factory()} creates virtual threads
+     */
+    static boolean isSupported() {
+        return FACTORY != null;
+    }
+
+    /**
+     * Returns factory of unstarted threads
+     *
+     * @return factory of virtual threads, or of platform ones if virtual are not supported
+     */
+    static ThreadFactory factory() {
+        return FACTORY != null ? FACTORY : Thread::new;
+    }
+}
@@ -0,0 +1,126 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free Chase-Lev deque. The owner thread pushes and pops at the bottom, any
+ * other thread may steal from the top. Only a steal and a pop of the last element
+ * race, they are resolved by one CAS on {@link #top}. Indices only grow and may
+ * overflow, so they are compared by their difference.
+ *
+ * @param <T> element type
+ *
+ * @author AlexSin
+ */
+final class WorkStealingDeque<T> {
+
+    private static final int INITIAL_CAPACITY = 1 << 6;
+
+    private static final VarHandle TOP;
+    private static final VarHandle BOTTOM;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TOP = lookup.findVarHandle(WorkStealingDeque.class, "top", int.class);
+            BOTTOM = lookup.findVarHandle(WorkStealingDeque.class, "bottom", int.class);
+        } catch (final ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile int top = 0;
+    private volatile int bottom = 0;
+    private volatile Object[] slots = new Object[INITIAL_CAPACITY];
+
+    /**
+     * Adds element at the bottom. Owner only
+     *
+     * @param element element to add
+     */
+    void push(final T element) {
+        final int b = (int) BOTTOM.getOpaque(this);
+        final int t = top;
+        Object[] array = slots;
+
+        if (b - t >= array.length - 1) {
+            array = grow(array, t, b);
+        }
+
+        SLOTS.setRelease(array, b & (array.length - 1), element);
+        BOTTOM.setRelease(this, b + 1);
+    }
+
+    private Object[] grow(final Object[] array, final int t, final int b) {
+        final Object[] grown = new Object[array.length << 1];
+        for (int i = t; i - b < 0; i++) {
+            grown[i & (grown.length - 1)] = array[i & (array.length - 1)];
+        }
+
+        slots = grown;
+
+        return grown;
+    }
+
+    /**
+     * Removes element from the bottom. Owner only
+     *
+     * @return the last pushed element or {@code null} if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    T pop() {
+        final int b = bottom - 1;
+        final Object[] array = slots;
+        bottom = b;
+
+        final int t = top;
+        if (b - t < 0) {
+            bottom = b + 1;
+            return null;
+        }
+
+        final int index = b & (array.length - 1);
+        Object element = SLOTS.getAcquire(array, index);
+        if (t == b) {
+            // the last element, a thief may be taking it right now
+            if (!TOP.compareAndSet(this, t, t + 1)) {
+                element = null;
+            }
+            bottom = b + 1;
+        } else {
+            SLOTS.setRelease(array, index, null);
+        }
+
+        return (T) element;
+    }
+
+    /**
+     * Removes element from the top. Any thread
+     *
+     * @return the oldest element or {@code null} if the deque is empty or another thread won the race
+     */
+    @SuppressWarnings("unchecked")
+    T steal() {
+        final int t = top;
+        final int b = bottom;
+        if (b - t <= 0) {
+            return null;
+        }
+
+        final Object[] array = slots;
+        final Object element = SLOTS.getAcquire(array, t & (array.length - 1));
+
+        return element != null && TOP.compareAndSet(this, t, t + 1) ? (T) element : null;
+    }
+
+    /**
+     * Checks whether the deque seems empty. Any thread
+     *
+     * @return {@code true} if there was nothing to steal at the moment of the call
+     */
+    boolean isEmpty() {
+        return bottom - top <= 0;
+    }
+}
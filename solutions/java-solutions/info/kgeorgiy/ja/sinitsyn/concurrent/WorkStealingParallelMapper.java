@@ -0,0 +1,315 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Work-stealing implementation of {@link ParallelMapper}. Unlike {@link ParallelMapperImpl},
+ * it has no shared lock: every worker owns a lock-free deque of range tasks. A range is
+ * split in halves, one half is pushed to the own deque, so idle workers steal big halves
+ * from random victims while the owner keeps working on small ones. Calls from outside
+ * go through a lock-free inbox. Workers with nothing to do park until new work is pushed.
+ *
+ * <p>Tasks are not executed in the order of submission.
+ *
+ * @author AlexSin
+ * @see ParallelMapper
+ */
+public class WorkStealingParallelMapper implements ParallelMapper {
+
+    /** Number of leaf ranges per worker a call is split into */
+    private static final int SPLITS_PER_WORKER = 8;
+
+    private final Worker[] workers;
+    private final ConcurrentLinkedQueue<RangeTask> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idle = new AtomicInteger();
+    /** Calls in progress, failed by {@link #close()} */
+    private final Set<Batch<?, ?>> batches = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed = false;
+
+    /**
+     * Starts worker threads
+     *
+     * @param threads count of threads to solve tasks
+     */
+    public WorkStealingParallelMapper(final int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads count should be positive: " + threads);
+        }
+
+        workers = IntStream.range(0, threads).mapToObj(Worker::new).toArray(Worker[]::new);
+        for (final Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /** One {@link #map} call */
+    private static final class Batch<T, R> {
+        private final Function<? super T, ? extends R> f;
+        private final List<? extends T> args;
+        private final Object[] results;
+        private final int grain;
+        private final Thread caller = Thread.currentThread();
+        private final AtomicInteger pending;
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        /** Set when the caller should stop waiting for the rest of the ranges */
+        private volatile boolean released = false;
+
+        private Batch(final Function<? super T, ? extends R> f, final List<? extends T> args, final int grain) {
+            this.f = f;
+            this.args = args;
+            this.results = new Object[args.size()];
+            this.grain = grain;
+            this.pending = new AtomicInteger(args.size());
+        }
+
+        private void run(final int from, final int to) {
+            if (error.get() == null) {
+                try {
+                    for (int i = from; i < to; i++) {
+                        results[i] = f.apply(args.get(i));
+                    }
+                } catch (final Throwable e) {
+                    fail(e);
+                }
+            }
+
+            if (pending.addAndGet(from - to) == 0) {
+                LockSupport.unpark(caller);
+            }
+        }
+
+        private void fail(final Throwable e) {
+            if (!error.compareAndSet(null, e)) {
+                error.get().addSuppressed(e);
+            }
+        }
+
+        /** Fails the call and wakes its caller without waiting for running ranges */
+        private void release(final Throwable e) {
+            fail(e);
+            released = true;
+            LockSupport.unpark(caller);
+        }
+
+        private boolean isDone() {
+            return released || pending.get() == 0;
+        }
+    }
+
+    private record RangeTask(Batch<?, ?> batch, int from, int to) {
+        /** Splits off halves to the deque of the worker until the range is small enough, then runs it */
+        private void run(final Worker worker) {
+            int hi = to;
+            while (hi - from > batch.grain) {
+                final int mid = (from + hi) >>> 1;
+                worker.push(new RangeTask(batch, mid, hi));
+                hi = mid;
+            }
+
+            batch.run(from, hi);
+        }
+    }
+
+    private final class Worker extends Thread {
+        private final WorkStealingDeque<RangeTask> deque = new WorkStealingDeque<>();
+        private final AtomicBoolean parked = new AtomicBoolean();
+
+        private Worker(final int index) {
+            super("work-stealing-mapper-" + index);
+        }
+
+        private WorkStealingParallelMapper owner() {
+            return WorkStealingParallelMapper.this;
+        }
+
+        private void push(final RangeTask task) {
+            deque.push(task);
+            signal();
+        }
+
+        /** Own deque first, then the inbox, then a random victim */
+        private RangeTask next() {
+            final RangeTask own = deque.pop();
+            if (own != null) {
+                return own;
+            }
+
+            final RangeTask submitted = inbox.poll();
+            if (submitted != null) {
+                return submitted;
+            }
+
+            final int start = ThreadLocalRandom.current().nextInt(workers.length);
+            for (int i = 0; i < workers.length; i++) {
+                final Worker victim = workers[(start + i) % workers.length];
+                if (victim != this) {
+                    final RangeTask stolen = victim.deque.steal();
+                    if (stolen != null) {
+                        return stolen;
+                    }
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                final RangeTask task = next();
+                if (task != null) {
+                    task.run(this);
+                } else {
+                    park();
+                }
+            }
+        }
+
+        private void park() {
+            parked.set(true);
+            idle.incrementAndGet();
+
+            // work pushed before the flag was seen must be found by this scan
+            if (hasWork() || closed) {
+                parked.set(false);
+            }
+            while (parked.get() && !closed) {
+                LockSupport.park(this);
+            }
+
+            idle.decrementAndGet();
+        }
+    }
+
+    private boolean hasWork() {
+        return !inbox.isEmpty() || Arrays.stream(workers).anyMatch(worker -> !worker.deque.isEmpty());
+    }
+
+    /** Wakes one parked worker, if any */
+    private void signal() {
+        // pairs with the scan in Worker.park: either it sees the new task or we see the idle worker
+        VarHandle.fullFence();
+        if (idle.get() == 0) {
+            return;
+        }
+
+        for (final Worker worker : workers) {
+            if (worker.parked.get() && worker.parked.compareAndSet(true, false)) {
+                LockSupport.unpark(worker);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Maps function over the arguments. A call from one of the workers of this mapper
+     * does not block the worker: it runs tasks of its own and others while waiting.
+     * If {@code f} throws, the rest of the arguments are skipped and the first exception
+     * is rethrown with others suppressed
+     *
+     * @throws InterruptedException if calling thread was interrupted
+     * @throws IllegalStateException if this mapper is closed
+     */
+    @Override
+    public <T, R> List<R> map(final Function<? super T, ? extends R> f, final List<? extends T> args) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Mapper is closed");
+        }
+        if (args.isEmpty()) {
+            return List.of();
+        }
+
+        final int grain = Math.max(1, args.size() / (workers.length * SPLITS_PER_WORKER));
+        final Batch<T, R> batch = new Batch<>(f, args, grain);
+        final RangeTask root = new RangeTask(batch, 0, args.size());
+
+        batches.add(batch);
+        try {
+            // either close() sees the batch or the batch sees the closed flag
+            if (closed) {
+                throw new IllegalStateException("Mapper is closed");
+            }
+            await(batch, root);
+        } finally {
+            batches.remove(batch);
+        }
+
+        final Throwable error = batch.error.get();
+        if (error instanceof RuntimeException e) {
+            throw e;
+        } else if (error instanceof Error e) {
+            throw e;
+        } else if (error != null) {
+            throw new IllegalStateException(error);
+        }
+
+        @SuppressWarnings("unchecked")
+        final List<R> result = (List<R>) Arrays.asList(batch.results);
+        return result;
+    }
+
+    private void await(final Batch<?, ?> batch, final RangeTask root) throws InterruptedException {
+        if (Thread.currentThread() instanceof Worker worker && worker.owner() == this) {
+            worker.push(root);
+            while (!batch.isDone()) {
+                final RangeTask task = worker.next();
+                if (task != null) {
+                    task.run(worker);
+                } else {
+                    // the rest of the batch is being run by thieves, the last of them unparks us
+                    LockSupport.park(this);
+                }
+            }
+        } else {
+            inbox.add(root);
+            signal();
+
+            while (!batch.isDone()) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    batch.fail(new InterruptedException("Mapping was interrupted"));
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the workers. Calls in progress fail with {@link IllegalStateException}
+     * rather than wait for ranges nobody is going to run
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        for (final Batch<?, ?> batch : batches) {
+            batch.release(new IllegalStateException("Mapper is closed"));
+        }
+
+        for (final Worker worker : workers) {
+            LockSupport.unpark(worker);
+
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (final InterruptedException e) {
+                    // do nothing
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package info.kgeorgiy.ja.sinitsyn.concurrent;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Tests for {@link WorkStealingParallelMapper} and its {@link WorkStealingDeque}:
+ * results, release of callers by {@link WorkStealingParallelMapper#close()} and
+ * overflow of deque indices
+ *
+ * @author AlexSin
+ */
+@RunWith(JUnit4.class)
+public final class WorkStealingParallelMapperTest {
+
+    @Test
+    public void test01_map() throws InterruptedException {
+        final List<Integer> args = IntStream.range(0, 10_000).boxed().toList();
+        try (final WorkStealingParallelMapper mapper = new WorkStealingParallelMapper(3)) {
+            Assert.assertEquals(args.stream().map(x -> x * 2).toList(), mapper.map(x -> x * 2, args));
+        }
+    }
+
+    @Test(timeout = 5_000)
+    public void test02_closeReleasesCaller() throws InterruptedException {
+        final WorkStealingParallelMapper mapper = new WorkStealingParallelMapper(1);
+        final AtomicReference<Throwable> thrown = new AtomicReference<>();
+
+        final Thread caller = new Thread(() -> {
+            try {
+                mapper.map(x -> {
+                    sleep(200);
+                    return x;
+                }, IntStream.range(0, 20).boxed().toList());
+            } catch (final Throwable e) {
+                thrown.set(e);
+            }
+        });
+        caller.start();
+
+        Thread.sleep(100);
+        mapper.close();
+        caller.join(1_000);
+
+        Assert.assertFalse("Caller is still waiting after close", caller.isAlive());
+        Assert.assertTrue(String.valueOf(thrown.get()), thrown.get() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void test03_dequeIndicesOverflow() throws ReflectiveOperationException {
+        final WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        for (final String name : List.of("top", "bottom")) {
+            final Field field = WorkStealingDeque.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.setInt(deque, Integer.MAX_VALUE - 2);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            deque.push(i);
+        }
+        Assert.assertFalse(deque.isEmpty());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(Integer.valueOf(i), deque.steal());
+        }
+        for (int i = 199; i >= 100; i--) {
+            Assert.assertEquals(Integer.valueOf(i), deque.pop());
+        }
+        Assert.assertTrue(deque.isEmpty());
+        Assert.assertNull(deque.pop());
+        Assert.assertNull(deque.steal());
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
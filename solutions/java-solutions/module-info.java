@@ -7,6 +7,7 @@ open module info.kgeorgiy.ja.sinitsyn {
     requires transitive base;
 
     requires java.compiler;
+    requires java.management;
     requires java.rmi;
     requires jdk.httpserver;
 
@@ -14,6 +15,8 @@ open module info.kgeorgiy.ja.sinitsyn {
 
     exports info.kgeorgiy.ja.sinitsyn.implementor;
 
+    exports info.kgeorgiy.ja.sinitsyn.arrayset;
+
     exports info.kgeorgiy.ja.sinitsyn.bank.bank;
     exports info.kgeorgiy.ja.sinitsyn.bank.account;
     exports info.kgeorgiy.ja.sinitsyn.bank.person;
@@ -24,4 +27,4 @@ open module info.kgeorgiy.ja.sinitsyn {
     exports info.kgeorgiy.ja.sinitsyn.i18n.stats;
     exports info.kgeorgiy.ja.sinitsyn.i18n
             to junit;
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,5 @@
+SET src=..\java-solutions\info\kgeorgiy\ja\sinitsyn
+
+mkdir "bin"
+javac -d bin %src%\arrayset\*.java %src%\benchmarks\*.java
+java -cp bin info.kgeorgiy.ja.sinitsyn.benchmarks.ArraySetBenchmark %* ; echo $?